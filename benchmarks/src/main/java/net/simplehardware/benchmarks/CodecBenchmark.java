@@ -0,0 +1,91 @@
+package net.simplehardware.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import net.simplehardware.MazeCodec;
+import net.simplehardware.MazeIO;
+import net.simplehardware.MazeLoader;
+import net.simplehardware.MazeModel;
+import org.openjdk.jmh.annotations.*;
+
+/** Decoding and encoding the "maze" string, and parsing a whole maze file. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"11", "101", "501", "2001"})
+    int size;
+
+    private MazeModel model;
+    private String maze;
+    private String json;
+    private byte[] header;
+    private final CountingChannel sink = new CountingChannel();
+
+    @Setup
+    public void setup() throws IOException {
+        model = Mazes.generate(size);
+        maze = MazeIO.toMazeInfoData(model, "bench", "Bench").maze;
+        header = MazeCodec.header("bench", "Bench", MazeCodec.formMask(model.cells()));
+        CountingChannel capture = new CountingChannel();
+        capture.keep = true;
+        MazeCodec.writeJson(model.cells(), size, size, header, capture);
+        json = capture.text.toString();
+    }
+
+    @Benchmark
+    public MazeLoader.Loaded decode() throws IOException {
+        MazeLoader.Loaded loaded = new MazeLoader.Loaded();
+        MazeLoader.decode(maze, loaded);
+        return loaded;
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        sink.written = 0;
+        MazeCodec.writeJson(model.cells(), size, size, header, sink);
+        return sink.written;
+    }
+
+    @Benchmark
+    public MazeLoader.Loaded parseJson() throws IOException {
+        return MazeLoader.load(new StringReader(json));
+    }
+
+    /** Discards what is written, optionally keeping it as text for setup. */
+    private static final class CountingChannel implements WritableByteChannel {
+        long written;
+        boolean keep;
+        final StringBuilder text = new StringBuilder();
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            if (keep) {
+                byte[] bytes = new byte[n];
+                src.get(bytes);
+                text.append(new String(bytes, StandardCharsets.UTF_8));
+            } else {
+                src.position(src.limit());
+            }
+            written += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
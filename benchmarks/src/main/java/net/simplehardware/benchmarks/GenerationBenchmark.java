@@ -0,0 +1,50 @@
+package net.simplehardware.benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import net.simplehardware.FairPlacement;
+import net.simplehardware.LabyrinthGenerator;
+import net.simplehardware.MazeAlgorithm;
+import net.simplehardware.MazeModel;
+import org.openjdk.jmh.annotations.*;
+
+/** Carving alone, and carving plus fair placement of four players. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"11", "101", "501", "2001"})
+    int size;
+
+    @Param({"Backtracker", "Kruskal", "Prim", "Wilson", "Eller"})
+    String algorithm;
+
+    private MazeAlgorithm carver;
+    private MazeModel model;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        carver = MazeAlgorithm.byName(algorithm);
+        model = new MazeModel(size);
+    }
+
+    @Benchmark
+    public byte[] carve() {
+        byte[] cells = model.cells();
+        Arrays.fill(cells, MazeModel.WALL);
+        carver.carve(cells, size, size, new SplittableRandom(seed++));
+        return cells;
+    }
+
+    @Benchmark
+    public boolean generateBalanced() {
+        return LabyrinthGenerator.generateBalancedMaze(
+                model, new FairPlacement(Mazes.PLAYERS), carver, seed++);
+    }
+}
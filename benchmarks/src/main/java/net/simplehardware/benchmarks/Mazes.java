@@ -0,0 +1,21 @@
+package net.simplehardware.benchmarks;
+
+import net.simplehardware.FairPlacement;
+import net.simplehardware.LabyrinthGenerator;
+import net.simplehardware.MazeAlgorithm;
+import net.simplehardware.MazeModel;
+
+/** Fixed-seed mazes shared by the benchmarks, so every run measures the same input. */
+final class Mazes {
+
+    static final long SEED = 42;
+    static final int PLAYERS = 4;
+
+    private Mazes() {}
+
+    static MazeModel generate(int size) {
+        MazeModel model = new MazeModel(size);
+        LabyrinthGenerator.generateBalancedMaze(model, new FairPlacement(PLAYERS), MazeAlgorithm.BACKTRACKER, SEED);
+        return model;
+    }
+}
@@ -0,0 +1,65 @@
+package net.simplehardware.benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import net.simplehardware.MazeCanvas;
+import net.simplehardware.MazeModel;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Offscreen rendering through {@link MazeCanvas#paintCells}: one editor-sized
+ * viewport at the default 60 px cells, and the whole grid scaled to fit 2048 px.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    private static final int VIEWPORT_W = 900;
+    private static final int VIEWPORT_H = 850;
+    private static final int VIEWPORT_CELL = 60;
+    private static final int FULL_PIXELS = 2048;
+
+    @Param({"11", "101", "501", "2001"})
+    int size;
+
+    private MazeModel model;
+    private BufferedImage viewport;
+    private BufferedImage full;
+    private int fullCell;
+
+    @Setup
+    public void setup() {
+        model = Mazes.generate(size);
+        viewport = new BufferedImage(VIEWPORT_W, VIEWPORT_H, BufferedImage.TYPE_INT_RGB);
+        fullCell = Math.max(1, FULL_PIXELS / size);
+        full = new BufferedImage(size * fullCell, size * fullCell, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Benchmark
+    public BufferedImage renderViewport() {
+        Graphics2D g = viewport.createGraphics();
+        try {
+            MazeCanvas.paintCells(g, model, VIEWPORT_CELL, new Rectangle(0, 0, VIEWPORT_W, VIEWPORT_H));
+        } finally {
+            g.dispose();
+        }
+        return viewport;
+    }
+
+    @Benchmark
+    public BufferedImage renderFullGrid() {
+        Graphics2D g = full.createGraphics();
+        try {
+            MazeCanvas.paintCells(g, model, fullCell, new Rectangle(0, 0, full.getWidth(), full.getHeight()));
+        } finally {
+            g.dispose();
+        }
+        return full;
+    }
+}
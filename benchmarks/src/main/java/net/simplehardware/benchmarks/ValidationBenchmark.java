@@ -0,0 +1,48 @@
+package net.simplehardware.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import net.simplehardware.DistanceField;
+import net.simplehardware.MazeModel;
+import net.simplehardware.MazeValidator;
+import org.openjdk.jmh.annotations.*;
+
+/** Full validation, and a single reachability BFS from one start. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"11", "101", "501", "2001"})
+    int size;
+
+    private MazeModel model;
+    private final MazeValidator validator = new MazeValidator();
+    private DistanceField field;
+    private int start;
+
+    @Setup
+    public void setup() {
+        model = Mazes.generate(size);
+        field = new DistanceField(size, size);
+        byte[] cells = model.cells();
+        for (int i = 0; i < cells.length; i++) {
+            if (MazeModel.modeOf(cells[i]) == net.simplehardware.Mode.START) {
+                start = i;
+                break;
+            }
+        }
+    }
+
+    @Benchmark
+    public MazeValidator.Report validate() {
+        return validator.validate(model.cells(), size, size);
+    }
+
+    @Benchmark
+    public int reachability() {
+        return field.compute(model.cells(), start);
+    }
+}
@@ -0,0 +1,116 @@
+package net.simplehardware;
+
+import java.awt.*;
+import java.util.concurrent.ExecutionException;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Side panel showing {@link MazeAnalyzer} statistics for the maze in the grid.
+ * The analysis runs on a background worker over a snapshot of the cells.
+ */
+public class AnalysisPanel extends JPanel {
+
+    private static final String[] COLUMNS = {
+        "Player", "Route", "Reach %", "Dead ends", "Junctions", "Branching", "Longest"
+    };
+
+    private final MazeGrid grid;
+    private final MazeAnalyzer analyzer = new MazeAnalyzer();
+    private final DefaultTableModel tableModel = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JTable table = new JTable(tableModel);
+    private final JTextArea details = new JTextArea(8, 24);
+    private final JButton analyzeBtn = new JButton("Analyze");
+    private MazeAnalyzer.Report report;
+
+    public AnalysisPanel(MazeGrid grid) {
+        super(new BorderLayout(0, 5));
+        this.grid = grid;
+        setBorder(BorderFactory.createTitledBorder("Analysis"));
+        setPreferredSize(new Dimension(320, 0));
+
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(e -> showDetails());
+        details.setEditable(false);
+        details.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        analyzeBtn.addActionListener(e -> analyze());
+
+        add(analyzeBtn, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(new JScrollPane(details), BorderLayout.SOUTH);
+    }
+
+    public void analyze() {
+        MazeModel model = grid.getModel();
+        int w = model.getWidth();
+        int h = model.getHeight();
+        byte[] cells = model.copyCells();
+        analyzeBtn.setEnabled(false);
+
+        new SwingWorker<MazeAnalyzer.Report, Void>() {
+            @Override
+            protected MazeAnalyzer.Report doInBackground() {
+                return analyzer.analyze(cells, w, h);
+            }
+
+            @Override
+            protected void done() {
+                analyzeBtn.setEnabled(true);
+                try {
+                    show(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    details.setText("Analysis failed: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void show(MazeAnalyzer.Report report) {
+        this.report = report;
+        tableModel.setRowCount(0);
+        for (MazeAnalyzer.PlayerStats s : report.players) {
+            tableModel.addRow(new Object[] {
+                s.player,
+                s.routeLength < 0 ? "-" : s.routeLength,
+                String.format("%.1f", 100 * s.reachableShare),
+                s.deadEnds,
+                s.junctions,
+                String.format("%.2f", s.branchingFactor),
+                s.longestCorridor,
+            });
+        }
+        if (report.players.isEmpty()) {
+            details.setText("No players placed.");
+        } else {
+            table.setRowSelectionInterval(0, 0);
+        }
+    }
+
+    private void showDetails() {
+        int row = table.getSelectedRow();
+        if (report == null || row < 0) return;
+        MazeAnalyzer.PlayerStats s = report.players.get(row);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Player ").append(s.player).append(": ")
+            .append(s.forms).append(" forms, ")
+            .append(s.reachableCells).append('/').append(report.openCells).append(" cells reachable\n");
+        sb.append("Route spread (all players): ").append(report.routeSpread()).append('\n');
+        sb.append("Corridors: ").append(s.corridors).append('\n');
+        int max = 0;
+        for (int count : s.corridorHistogram) max = Math.max(max, count);
+        for (int len = 1; len < s.corridorHistogram.length; len++) {
+            int count = s.corridorHistogram[len];
+            if (count == 0) continue;
+            String label = len == MazeAnalyzer.MAX_CORRIDOR_BUCKET ? len + "+" : String.valueOf(len);
+            int bar = (int) Math.ceil(20.0 * count / max);
+            sb.append(String.format("%4s %6d %s%n", label, count, "#".repeat(bar)));
+        }
+        details.setText(sb.toString());
+        details.setCaretPosition(0);
+    }
+}
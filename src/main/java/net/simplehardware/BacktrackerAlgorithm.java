@@ -0,0 +1,64 @@
+package net.simplehardware;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Iterative recursive backtracker. Carved cells are the visited set, so the
+ * only extra memory is the explicit stack of cell indices. Produces long,
+ * winding corridors with few branches.
+ */
+public class BacktrackerAlgorithm implements MazeAlgorithm {
+
+    // Two-cell steps: east, west, south, north
+    private static final int[] DX = {2, -2, 0, 0};
+    private static final int[] DY = {0, 0, 2, -2};
+
+    @Override
+    public String getName() {
+        return "Backtracker";
+    }
+
+    @Override
+    public void carve(byte[] cells, int w, int h, SplittableRandom rng) {
+        int startX = rng.nextInt((w - 1) / 2) * 2 + 1;
+        int startY = rng.nextInt((h - 1) / 2) * 2 + 1;
+
+        int[] stack = new int[64];
+        int top = 0;
+        int[] options = new int[4];
+
+        cells[startY * w + startX] = MazeModel.FLOOR;
+        stack[top++] = startY * w + startX;
+
+        while (top > 0) {
+            int cur = stack[top - 1];
+            int x = cur % w;
+            int y = cur / w;
+
+            int count = 0;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (nx > 0 && ny > 0 && nx < w - 1 && ny < h - 1
+                        && cells[ny * w + nx] == MazeModel.WALL) {
+                    options[count++] = d;
+                }
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+
+            int d = options[rng.nextInt(count)];
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            // carve wall between (x,y) and (nx,ny)
+            cells[(y + DY[d] / 2) * w + x + DX[d] / 2] = MazeModel.FLOOR;
+            cells[ny * w + nx] = MazeModel.FLOOR;
+
+            if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+            stack[top++] = ny * w + nx;
+        }
+    }
+}
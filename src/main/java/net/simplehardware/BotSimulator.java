@@ -0,0 +1,335 @@
+package net.simplehardware;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Plays a maze with bots under the Maze Runner rules: every player starts on
+ * its START, collects its forms in letter order and then walks to its FINISH.
+ * All players move in the same game, one step per turn, in a random order
+ * each turn. A step onto a cell held by another bot is a collision on that
+ * cell and costs the moving bot its turn; on its next turn it squeezes past,
+ * so two bots meeting head-on in a one-wide corridor cannot deadlock.
+ * Finished bots leave the board.
+ *
+ * <p>Each simulation runs on its own virtual thread, so thousands of games
+ * per map are just thousands of tasks. Results are the turns each player
+ * needed (or did not finish within the turn limit) and the cells where bots
+ * collided most.
+ */
+public class BotSimulator {
+
+    public enum Policy {
+        /** Follows a shortest path to the current target; ties are broken at random. */
+        GREEDY,
+        /** Steps to a uniformly random open neighbour. */
+        RANDOM,
+        /** Keeps its left hand on the wall. Reaches every cell of a perfect maze. */
+        WALL_FOLLOWER;
+
+        public static Policy byName(String name) {
+            return switch (name.toLowerCase()) {
+                case "greedy" -> GREEDY;
+                case "random" -> RANDOM;
+                case "wall", "wall-follower" -> WALL_FOLLOWER;
+                default -> throw new IllegalArgumentException("Unknown policy: " + name);
+            };
+        }
+    }
+
+    public static final int HOTSPOTS = 10;
+    private static final int HISTOGRAM_BUCKETS = 20;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    // East, south, west, north: clockwise, so left of d is (d + 3) % 4
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+
+    public static class PlayerStats {
+        public int player;
+        public String policy;
+        public int finished;
+        public double finishRate;
+        /** Over finished games only; 0 if none finished. */
+        public double meanTurns;
+        public int minTurns;
+        public int medianTurns;
+        public int p90Turns;
+        public int maxTurns;
+        /** Finished games per bucket of bucketWidth turns, starting at minTurns. */
+        public int bucketWidth;
+        public int[] histogram;
+    }
+
+    public record Hotspot(int x, int y, int collisions) {}
+
+    public static class Report {
+        public int simulations;
+        public int turnLimit;
+        public double seconds;
+        public List<PlayerStats> players = new ArrayList<>();
+        public long collisions;
+        public List<Hotspot> hotspots = new ArrayList<>();
+
+        public String toJson() {
+            return GSON.toJson(this);
+        }
+    }
+
+    private final byte[] cells;
+    private final int w;
+    private final int h;
+    private final int[] players;      // player ids present, ascending
+    private final int[] starts;       // per bot
+    private final int[][] targets;    // per bot: forms in letter order, then finish
+    private final int[][][] fields;   // per bot and target: BFS distances to that target
+    private final int turnLimit;
+
+    public BotSimulator(MazeLoader.Loaded maze) {
+        this(maze.cells, maze.width, maze.height, 0);
+    }
+
+    /**
+     * Prepares shortest-path fields for every player with a start and a
+     * finish. turnLimit 0 picks ten turns per open cell.
+     */
+    public BotSimulator(byte[] cells, int w, int h, int turnLimit) {
+        this.cells = cells;
+        this.w = w;
+        this.h = h;
+
+        int[] start = new int[MazeModel.MAX_PLAYERS + 1];
+        int[] finish = new int[MazeModel.MAX_PLAYERS + 1];
+        int[][] forms = new int[MazeModel.MAX_PLAYERS + 1][26];
+        Arrays.fill(start, -1);
+        Arrays.fill(finish, -1);
+        for (int[] f : forms) Arrays.fill(f, -1);
+        int open = 0;
+        for (int i = 0; i < cells.length; i++) {
+            byte c = cells[i];
+            if (!MazeModel.isWall(c)) open++;
+            Mode mode = MazeModel.modeOf(c);
+            if (!mode.hasOwner() || mode == Mode.SHEET) continue;
+            int p = MazeModel.playerOf(c);
+            if (mode == Mode.START) start[p] = i;
+            else if (mode == Mode.FINISH) finish[p] = i;
+            else forms[p][mode.ordinal() - Mode.FORM_A.ordinal()] = i;
+        }
+        this.turnLimit = turnLimit > 0 ? turnLimit : Math.max(100, 10 * open);
+
+        List<Integer> present = new ArrayList<>();
+        for (int p = 1; p <= MazeModel.MAX_PLAYERS; p++) {
+            if (start[p] >= 0 && finish[p] >= 0) present.add(p);
+        }
+        int bots = present.size();
+        players = new int[bots];
+        starts = new int[bots];
+        targets = new int[bots][];
+        fields = new int[bots][][];
+        DistanceField field = new DistanceField(w, h);
+        for (int b = 0; b < bots; b++) {
+            int p = present.get(b);
+            players[b] = p;
+            starts[b] = start[p];
+            int[] route = Arrays.stream(forms[p]).filter(i -> i >= 0).toArray();
+            targets[b] = Arrays.copyOf(route, route.length + 1);
+            targets[b][route.length] = finish[p];
+            fields[b] = new int[targets[b].length][];
+            for (int t = 0; t < targets[b].length; t++) {
+                field.compute(cells, targets[b][t]);
+                fields[b][t] = field.distances().clone();
+            }
+        }
+    }
+
+    public int getTurnLimit() {
+        return turnLimit;
+    }
+
+    /** Player ids that take part: those with both a start and a finish. */
+    public int[] getPlayers() {
+        return players.clone();
+    }
+
+    /**
+     * Runs simulations games, each on a virtual thread. policies holds one
+     * policy per participating player, or a single one for all of them.
+     * Game i uses seed + i, so a run is reproducible.
+     */
+    public Report run(int simulations, Policy[] policies, long seed) throws InterruptedException {
+        int bots = players.length;
+        if (policies.length != 1 && policies.length != bots) {
+            throw new IllegalArgumentException("Need 1 or " + bots + " policies, got " + policies.length);
+        }
+        Policy[] perBot = new Policy[bots];
+        for (int b = 0; b < bots; b++) perBot[b] = policies[policies.length == 1 ? 0 : b];
+
+        long startNanos = System.nanoTime();
+        AtomicIntegerArray collisions = new AtomicIntegerArray(cells.length);
+        int[][] turns = new int[bots][simulations];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<int[]>> games = new ArrayList<>(simulations);
+            for (int s = 0; s < simulations; s++) {
+                long gameSeed = seed + s;
+                games.add(executor.submit(() -> play(perBot, new SplittableRandom(gameSeed), collisions)));
+            }
+            for (int s = 0; s < simulations; s++) {
+                int[] result = games.get(s).get();
+                for (int b = 0; b < bots; b++) turns[b][s] = result[b];
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+        long nanos = System.nanoTime() - startNanos;
+        Metrics.timer("simulation").record(nanos);
+        Metrics.count("simulation.games", simulations);
+
+        Report report = new Report();
+        report.simulations = simulations;
+        report.turnLimit = turnLimit;
+        report.seconds = nanos / 1e9;
+        for (int b = 0; b < bots; b++) report.players.add(stats(players[b], perBot[b], turns[b]));
+        report.hotspots = hotspots(collisions, report);
+        return report;
+    }
+
+    // ------------------------------------------------
+    // One game
+    // ------------------------------------------------
+
+    /** Turns each bot needed, -1 if it did not finish within the limit. */
+    private int[] play(Policy[] policies, SplittableRandom rng, AtomicIntegerArray collisions) {
+        int bots = players.length;
+        int[] pos = starts.clone();
+        int[] next = new int[bots];          // index into targets[b]
+        int[] heading = new int[bots];
+        int[] finishedAt = new int[bots];
+        boolean[] blocked = new boolean[bots];
+        int[] order = new int[bots];
+        int[] options = new int[4];
+        Arrays.fill(finishedAt, -1);
+        for (int b = 0; b < bots; b++) {
+            order[b] = b;
+            heading[b] = rng.nextInt(4);
+        }
+        int remaining = bots;
+
+        for (int turn = 1; turn <= turnLimit && remaining > 0; turn++) {
+            // Random move order each turn, so no player always goes first
+            for (int k = bots - 1; k > 0; k--) {
+                int j = rng.nextInt(k + 1);
+                int t = order[k];
+                order[k] = order[j];
+                order[j] = t;
+            }
+            for (int k = 0; k < bots; k++) {
+                int b = order[k];
+                if (finishedAt[b] >= 0) continue;
+                int dir = choose(policies[b], b, pos[b], next[b], heading[b], rng, options);
+                if (dir < 0) continue;
+                int to = pos[b] + DX[dir] + DY[dir] * w;
+                if (!blocked[b] && occupied(pos, finishedAt, to)) {
+                    collisions.incrementAndGet(to);
+                    blocked[b] = true;
+                    continue;
+                }
+                blocked[b] = false;
+                pos[b] = to;
+                heading[b] = dir;
+                if (to == targets[b][next[b]] && ++next[b] == targets[b].length) {
+                    finishedAt[b] = turn;
+                    remaining--;
+                }
+            }
+        }
+        return finishedAt;
+    }
+
+    private static boolean occupied(int[] pos, int[] finishedAt, int cell) {
+        for (int b = 0; b < pos.length; b++) {
+            if (finishedAt[b] < 0 && pos[b] == cell) return true;
+        }
+        return false;
+    }
+
+    /** Direction bot b wants to step in, or -1 to stay. */
+    private int choose(Policy policy, int b, int at, int target, int heading,
+                       SplittableRandom rng, int[] options) {
+        int x = at % w;
+        int y = at / w;
+        int count = 0;
+        switch (policy) {
+            case GREEDY -> {
+                int[] dist = fields[b][target];
+                for (int d = 0; d < 4; d++) {
+                    if (open(x + DX[d], y + DY[d]) && dist[at + DX[d] + DY[d] * w] == dist[at] - 1) {
+                        options[count++] = d;
+                    }
+                }
+            }
+            case RANDOM -> {
+                for (int d = 0; d < 4; d++) {
+                    if (open(x + DX[d], y + DY[d])) options[count++] = d;
+                }
+            }
+            case WALL_FOLLOWER -> {
+                // Left, straight, right, back
+                for (int turn = 3; turn <= 6; turn++) {
+                    int d = (heading + turn) % 4;
+                    if (open(x + DX[d], y + DY[d])) return d;
+                }
+                return -1;
+            }
+        }
+        return count == 0 ? -1 : options[rng.nextInt(count)];
+    }
+
+    private boolean open(int x, int y) {
+        return x >= 0 && y >= 0 && x < w && y < h && !MazeModel.isWall(cells[y * w + x]);
+    }
+
+    // ------------------------------------------------
+    // Aggregation
+    // ------------------------------------------------
+    private static PlayerStats stats(int player, Policy policy, int[] turns) {
+        PlayerStats s = new PlayerStats();
+        s.player = player;
+        s.policy = policy.name().toLowerCase();
+        int[] done = Arrays.stream(turns).filter(t -> t >= 0).sorted().toArray();
+        s.finished = done.length;
+        s.finishRate = turns.length == 0 ? 0 : (double) done.length / turns.length;
+        s.histogram = new int[0];
+        if (done.length == 0) return s;
+
+        s.meanTurns = Arrays.stream(done).average().orElse(0);
+        s.minTurns = done[0];
+        s.medianTurns = done[(done.length - 1) / 2];
+        s.p90Turns = done[(int) Math.ceil(0.9 * done.length) - 1];
+        s.maxTurns = done[done.length - 1];
+        s.bucketWidth = Math.max(1, (s.maxTurns - s.minTurns) / HISTOGRAM_BUCKETS + 1);
+        s.histogram = new int[(s.maxTurns - s.minTurns) / s.bucketWidth + 1];
+        for (int t : done) s.histogram[(t - s.minTurns) / s.bucketWidth]++;
+        return s;
+    }
+
+    private List<Hotspot> hotspots(AtomicIntegerArray collisions, Report report) {
+        List<Hotspot> all = new ArrayList<>();
+        for (int i = 0; i < collisions.length(); i++) {
+            int c = collisions.get(i);
+            if (c == 0) continue;
+            report.collisions += c;
+            all.add(new Hotspot(i % w, i / w, c));
+        }
+        all.sort((a, b) -> Integer.compare(b.collisions(), a.collisions()));
+        return new ArrayList<>(all.subList(0, Math.min(HOTSPOTS, all.size())));
+    }
+}
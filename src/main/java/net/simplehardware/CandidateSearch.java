@@ -0,0 +1,299 @@
+package net.simplehardware;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Best-of-N generation: N seeded candidates are generated in parallel on a
+ * fork-join pool, scored, and the k best are kept with their seeds.
+ *
+ * <p>A score is a weighted sum of penalties that are each 0 (ideal) to 1,
+ * so lower is better:
+ * <ul>
+ *   <li>route spread: longest minus shortest route, over the longest route</li>
+ *   <li>dead ends: distance of the dead-end share of open cells from a target</li>
+ *   <li>overlap: share of route cells that more than one player walks over</li>
+ * </ul>
+ * They are computed cheapest first. Since every term is non-negative, a
+ * partial sum is a lower bound, and a candidate is dropped as soon as it can
+ * no longer beat the k-th best score found so far; most candidates never
+ * reach the overlap term, which needs a BFS per route segment.
+ */
+public class CandidateSearch {
+
+    public static final double DEFAULT_SPREAD_WEIGHT = 1.0;
+    public static final double DEFAULT_DEAD_END_WEIGHT = 0.25;
+    public static final double DEFAULT_OVERLAP_WEIGHT = 0.5;
+    public static final double DEFAULT_DEAD_END_TARGET = 0.15;
+
+    /** One scored maze. Cells are kept only for candidates in the top k. */
+    public static class Candidate {
+        public final long seed;
+        public double score;
+        public double spread;
+        public double deadEndRatio;
+        public double overlap;
+        public int[] routeLengths;
+        public transient byte[] cells;
+
+        Candidate(long seed) {
+            this.seed = seed;
+        }
+    }
+
+    public static class Result {
+        /** Best first. */
+        public final List<Candidate> best;
+        public final int evaluated;
+        public final int failed;
+        public final int cutEarly;
+        public final long nanos;
+
+        Result(List<Candidate> best, int evaluated, int failed, int cutEarly, long nanos) {
+            this.best = best;
+            this.evaluated = evaluated;
+            this.failed = failed;
+            this.cutEarly = cutEarly;
+            this.nanos = nanos;
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final FairPlacement placement;
+    private final MazeAlgorithm algorithm;
+    private final boolean symmetric;
+    private double spreadWeight = DEFAULT_SPREAD_WEIGHT;
+    private double deadEndWeight = DEFAULT_DEAD_END_WEIGHT;
+    private double overlapWeight = DEFAULT_OVERLAP_WEIGHT;
+    private double deadEndTarget = DEFAULT_DEAD_END_TARGET;
+    private final ThreadLocal<DistanceField> fields;
+
+    public CandidateSearch(int width, int height, FairPlacement placement,
+                           MazeAlgorithm algorithm, boolean symmetric) {
+        this.width = width;
+        this.height = height;
+        this.placement = placement;
+        this.algorithm = algorithm;
+        this.symmetric = symmetric;
+        this.fields = ThreadLocal.withInitial(() -> new DistanceField(width, height));
+    }
+
+    public void setWeights(double spread, double deadEnds, double overlap) {
+        if (spread < 0 || deadEnds < 0 || overlap < 0) {
+            throw new IllegalArgumentException("Weights must not be negative");
+        }
+        this.spreadWeight = spread;
+        this.deadEndWeight = deadEnds;
+        this.overlapWeight = overlap;
+    }
+
+    public void setDeadEndTarget(double target) {
+        if (target <= 0 || target >= 1) throw new IllegalArgumentException("Dead-end target must be in (0, 1)");
+        this.deadEndTarget = target;
+    }
+
+    public Result search(long firstSeed, int count, int top, ForkJoinPool pool) {
+        return search(firstSeed, count, top, pool, Progress.NONE);
+    }
+
+    /**
+     * Scores seeds firstSeed .. firstSeed + count - 1 on pool and returns the
+     * top best. Progress counts finished candidates and may cancel the search.
+     */
+    public Result search(long firstSeed, int count, int top, ForkJoinPool pool, Progress progress) {
+        if (top < 1) throw new IllegalArgumentException("top must be at least 1");
+        long start = System.nanoTime();
+        Run run = new Run(top, count, progress);
+        pool.invoke(new Batch(run, firstSeed, 0, count));
+
+        List<Candidate> best = run.sorted();
+        long nanos = System.nanoTime() - start;
+        Metrics.timer("search").record(nanos);
+        Metrics.count("search.candidates", run.evaluated.get());
+        Metrics.count("search.cutEarly", run.cutEarly.get());
+        return new Result(best, run.evaluated.get(), run.failed.get(), run.cutEarly.get(), nanos);
+    }
+
+    // ------------------------------------------------
+    // Fork-join over the seed range
+    // ------------------------------------------------
+    private class Batch extends RecursiveAction {
+        private final Run run;
+        private final long firstSeed;
+        private final int from;
+        private final int to;
+
+        Batch(Run run, long firstSeed, int from, int to) {
+            this.run = run;
+            this.firstSeed = firstSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) run.offer(evaluate(firstSeed + from, run));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Batch(run, firstSeed, from, mid), new Batch(run, firstSeed, mid, to));
+        }
+    }
+
+    /** Shared state of one search: the top-k heap and its cutoff. */
+    private static class Run {
+        final int top;
+        final int count;
+        final Progress progress;
+        final PriorityQueue<Candidate> heap = new PriorityQueue<>(
+            Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        final AtomicInteger evaluated = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger cutEarly = new AtomicInteger();
+        volatile double cutoff = Double.POSITIVE_INFINITY;
+
+        Run(int top, int count, Progress progress) {
+            this.top = top;
+            this.count = count;
+            this.progress = progress;
+        }
+
+        /** True if a candidate whose score is at least partial cannot make the top k. */
+        boolean hopeless(double partial) {
+            return partial >= cutoff;
+        }
+
+        synchronized void offer(Candidate c) {
+            int done = evaluated.incrementAndGet();
+            if (c != null && c.score < cutoff) {
+                heap.add(c);
+                if (heap.size() > top) heap.poll();
+                if (heap.size() == top) cutoff = heap.peek().score;
+            }
+            progress.update("Scoring candidates", (double) done / count);
+        }
+
+        synchronized List<Candidate> sorted() {
+            List<Candidate> list = new ArrayList<>(heap);
+            list.sort(Comparator.comparingDouble((Candidate c) -> c.score).thenComparingLong(c -> c.seed));
+            return list;
+        }
+    }
+
+    // ------------------------------------------------
+    // Scoring, cheapest terms first
+    // ------------------------------------------------
+
+    /** Generates and scores one seed; null if it failed or was cut off. */
+    private Candidate evaluate(long seed, Run run) {
+        MazeModel model = new MazeModel(width, height);
+        FairPlacement.Result placed = symmetric
+            ? SymmetricGenerator.generateWithResult(model, placement, algorithm, seed, Progress.NONE)
+            : LabyrinthGenerator.generate(model, placement, algorithm, seed, Progress.NONE);
+        if (placed == null || !placed.withinTolerance) {
+            run.failed.incrementAndGet();
+            return null;
+        }
+        byte[] cells = model.cells();
+        Candidate c = new Candidate(seed);
+        c.routeLengths = placed.routeLengths;
+
+        // 1. Route spread, known from placement
+        int longest = 0;
+        for (int len : placed.routeLengths) longest = Math.max(longest, len);
+        c.spread = longest == 0 ? 0 : (double) placed.spread() / longest;
+        double score = spreadWeight * c.spread;
+        if (run.hopeless(score)) return cut(run);
+
+        // 2. Dead ends, one pass over the cells
+        c.deadEndRatio = deadEndRatio(cells);
+        score += deadEndWeight * Math.min(1, Math.abs(c.deadEndRatio - deadEndTarget) / deadEndTarget);
+        if (run.hopeless(score)) return cut(run);
+
+        // 3. Route overlap, one BFS per segment
+        c.overlap = overlap(cells, placed);
+        score += overlapWeight * c.overlap;
+        if (run.hopeless(score)) return cut(run);
+
+        c.score = score;
+        c.cells = cells;
+        return c;
+    }
+
+    private static Candidate cut(Run run) {
+        run.cutEarly.incrementAndGet();
+        return null;
+    }
+
+    private double deadEndRatio(byte[] cells) {
+        int w = width;
+        int open = 0;
+        int deadEnds = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (MazeModel.isWall(cells[i])) continue;
+            open++;
+            int x = i % w;
+            int degree = 0;
+            if (x > 0 && !MazeModel.isWall(cells[i - 1])) degree++;
+            if (x < w - 1 && !MazeModel.isWall(cells[i + 1])) degree++;
+            if (i >= w && !MazeModel.isWall(cells[i - w])) degree++;
+            if (i + w < cells.length && !MazeModel.isWall(cells[i + w])) degree++;
+            if (degree == 1) deadEnds++;
+        }
+        return open == 0 ? 0 : (double) deadEnds / open;
+    }
+
+    /** Cells on more than one player's shortest route, over all route cells. */
+    private double overlap(byte[] cells, FairPlacement.Result placed) {
+        DistanceField field = fields.get();
+        int players = placed.starts.length;
+        int forms = placed.forms.length == 0 ? 0 : placed.forms[0].length;
+        int[] owner = new int[cells.length];     // player + 1 who first walked the cell, 0 if none
+        boolean[] shared = new boolean[cells.length];
+        int union = 0;
+        int sharedCount = 0;
+        for (int p = 0; p < players; p++) {
+            int from = placed.starts[p];
+            for (int s = 0; s <= forms; s++) {
+                int to = s < forms ? placed.forms[p][s] : placed.finishes[p];
+                field.compute(cells, to);
+                int[] dist = field.distances();
+                // Walk downhill from 'from' to 'to'
+                int cur = from;
+                while (true) {
+                    if (owner[cur] == 0) {
+                        owner[cur] = p + 1;
+                        union++;
+                    } else if (owner[cur] != p + 1 && !shared[cur]) {
+                        shared[cur] = true;
+                        sharedCount++;
+                    }
+                    if (cur == to || dist[cur] <= 0) break;
+                    cur = downhill(dist, cur);
+                    if (cur < 0) break;
+                }
+                from = to;
+            }
+        }
+        return union == 0 ? 0 : (double) sharedCount / union;
+    }
+
+    /** Neighbour of i one step closer to the source, or -1 if there is none. */
+    private int downhill(int[] dist, int i) {
+        int w = width;
+        int want = dist[i] - 1;
+        int x = i % w;
+        if (x > 0 && dist[i - 1] == want) return i - 1;
+        if (x < w - 1 && dist[i + 1] == want) return i + 1;
+        if (i >= w && dist[i - w] == want) return i - w;
+        if (i + w < dist.length && dist[i + w] == want) return i + w;
+        return -1;
+    }
+}
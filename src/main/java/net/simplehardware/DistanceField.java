@@ -0,0 +1,106 @@
+package net.simplehardware;
+
+import java.util.Arrays;
+
+/**
+ * Reusable breadth-first search over a row-major cell array. Every non-wall
+ * cell is passable. The distance and queue buffers are allocated once per
+ * grid size, so repeated searches do not allocate.
+ */
+public class DistanceField {
+
+    public static final int UNREACHABLE = -1;
+
+    private int width;
+    private int height;
+    private int[] dist;
+    private int[] queue;
+    private int reached;
+    private int maxDistance;
+
+    public DistanceField(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.dist = new int[width * height];
+        this.queue = new int[width * height];
+    }
+
+    /** Grows or shrinks the buffers when the grid size changes. */
+    public void ensureSize(int newWidth, int newHeight) {
+        if (newWidth == width && newHeight == height) return;
+        width = newWidth;
+        height = newHeight;
+        dist = new int[width * height];
+        queue = new int[width * height];
+    }
+
+    /**
+     * Multi-source BFS: each cell gets its distance to the nearest source.
+     * Returns the number of cells reached.
+     */
+    public int compute(byte[] cells, int... sources) {
+        Arrays.fill(dist, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        for (int s : sources) {
+            if (dist[s] == UNREACHABLE && !MazeModel.isWall(cells[s])) {
+                dist[s] = 0;
+                queue[tail++] = s;
+            }
+        }
+        int w = width;
+        int max = 0;
+        while (head < tail) {
+            int i = queue[head++];
+            int d = dist[i] + 1;
+            int x = i % w;
+            if (x > 0) tail = visit(cells, i - 1, d, tail);
+            if (x < w - 1) tail = visit(cells, i + 1, d, tail);
+            if (i >= w) tail = visit(cells, i - w, d, tail);
+            if (i + w < dist.length) tail = visit(cells, i + w, d, tail);
+            max = d - 1;
+        }
+        reached = tail;
+        maxDistance = max;
+        return tail;
+    }
+
+    private int visit(byte[] cells, int j, int d, int tail) {
+        if (dist[j] == UNREACHABLE && !MazeModel.isWall(cells[j])) {
+            dist[j] = d;
+            queue[tail++] = j;
+        }
+        return tail;
+    }
+
+    public int get(int index) {
+        return dist[index];
+    }
+
+    /** Backing distance array, indexed like the cell array. */
+    public int[] distances() {
+        return dist;
+    }
+
+    /** Cells in the order they were reached by the last search. */
+    public int[] order() {
+        return queue;
+    }
+
+    public int getReached() {
+        return reached;
+    }
+
+    /** Largest finite distance found by the last search. */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
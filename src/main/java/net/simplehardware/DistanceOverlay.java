@@ -0,0 +1,302 @@
+package net.simplehardware;
+
+import java.util.Arrays;
+
+/**
+ * Distances from one player's START, kept up to date while the maze is
+ * edited. A single cell switching between wall and open space is repaired
+ * locally: an opened cell pulls its neighbours' distances down with a BFS
+ * from that cell, and a new wall invalidates only the cells whose every
+ * shortest path ran through it, which are then re-settled from their
+ * unaffected neighbours. Anything else, or a repair that would touch most of
+ * the grid, falls back to a full BFS.
+ */
+public class DistanceOverlay implements MazeModel.Listener {
+
+    /** Told which cells' distances changed, as a bounding rectangle. */
+    public interface Listener {
+        void distancesChanged(int minX, int minY, int maxX, int maxY);
+    }
+
+    private final MazeModel model;
+    private final Listener listener;
+    private final DistanceField field = new DistanceField(0, 0);
+    private byte[] shadow = new byte[0];   // cells as of the last update
+    private int[] queue = new int[0];      // repair BFS queue
+    private int[] affected = new int[0];   // cells invalidated by a new wall
+    private int[] mark = new int[0];       // == stamp when a cell is in the affected set
+    private int[] queued = new int[0];     // == stamp once a cell has been queued for that check
+    private int stamp;
+    private int player;                    // 0 = off
+    private int source = -1;
+    private int fullRecomputes;
+    private int repairs;
+
+    public DistanceOverlay(MazeModel model, Listener listener) {
+        this.model = model;
+        this.listener = listener;
+        model.addListener(this);
+    }
+
+    /** Shows distances from this player's START, or turns the overlay off with 0. */
+    public void setPlayer(int player) {
+        this.player = player;
+        recompute();
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    public boolean isEnabled() {
+        return player > 0;
+    }
+
+    /** Distance of a cell from the START, or {@link DistanceField#UNREACHABLE}. */
+    public int get(int index) {
+        return isEnabled() ? field.get(index) : DistanceField.UNREACHABLE;
+    }
+
+    public int getFullRecomputes() {
+        return fullRecomputes;
+    }
+
+    public int getRepairs() {
+        return repairs;
+    }
+
+    // ------------------------------------------------
+    // Model events
+    // ------------------------------------------------
+    @Override
+    public void modelResized(int width, int height) {
+        recompute();
+    }
+
+    @Override
+    public void cellsChanged(int minX, int minY, int maxX, int maxY) {
+        if (!isEnabled()) return;
+        byte[] cells = model.cells();
+        if (minX != maxX || minY != maxY || shadow.length != cells.length) {
+            recompute();
+            return;
+        }
+        int i = model.index(minX, minY);
+        byte before = shadow[i];
+        byte after = cells[i];
+        shadow[i] = after;
+        if (isSource(before) || isSource(after)) {
+            recompute();
+        } else if (MazeModel.isWall(before) && !MazeModel.isWall(after)) {
+            opened(cells, i);
+        } else if (!MazeModel.isWall(before) && MazeModel.isWall(after)) {
+            closed(cells, i);
+        }
+    }
+
+    private boolean isSource(byte cell) {
+        return MazeModel.modeOf(cell) == Mode.START && MazeModel.playerOf(cell) == player;
+    }
+
+    // ------------------------------------------------
+    // Full recompute
+    // ------------------------------------------------
+    private void recompute() {
+        int w = model.getWidth();
+        int h = model.getHeight();
+        byte[] cells = model.cells();
+        field.ensureSize(w, h);
+        if (shadow.length != cells.length) {
+            queue = new int[cells.length];
+            affected = new int[cells.length];
+            mark = new int[cells.length];
+            queued = new int[cells.length];
+            stamp = 0;
+        }
+        shadow = cells.clone();
+        source = -1;
+        if (isEnabled()) {
+            for (int i = 0; i < cells.length; i++) {
+                if (isSource(cells[i])) {
+                    source = i;
+                    break;
+                }
+            }
+        }
+        if (source >= 0) field.compute(cells, source);
+        else Arrays.fill(field.distances(), DistanceField.UNREACHABLE);
+        fullRecomputes++;
+        if (w > 0 && h > 0) listener.distancesChanged(0, 0, w - 1, h - 1);
+    }
+
+    // ------------------------------------------------
+    // Incremental repair
+    // ------------------------------------------------
+
+    /** A wall became open: relax outwards from the new cell. */
+    private void opened(byte[] cells, int c) {
+        int[] dist = field.distances();
+        int w = model.getWidth();
+        int best = DistanceField.UNREACHABLE;
+        for (int n = 0; n < 4; n++) {
+            int j = neighbour(c, w, n);
+            if (j >= 0 && dist[j] != DistanceField.UNREACHABLE && (best < 0 || dist[j] < best)) best = dist[j];
+        }
+        if (best < 0) return; // still cut off from the start
+        dist[c] = best + 1;
+        queue[0] = c;
+        Dirty dirty = new Dirty(w, c);
+        relax(cells, dist, w, 0, 1, null, 0, dirty);
+        finish(dirty);
+    }
+
+    /** An open cell became a wall: invalidate what depended on it, then re-settle. */
+    private void closed(byte[] cells, int c) {
+        int[] dist = field.distances();
+        int w = model.getWidth();
+        int old = dist[c];
+        dist[c] = DistanceField.UNREACHABLE;
+        Dirty dirty = new Dirty(w, c);
+        if (old == DistanceField.UNREACHABLE) {
+            finish(dirty);
+            return;
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            Arrays.fill(queued, 0);
+            stamp = 1;
+        }
+
+        // 1. Affected set, in distance order: cells left with no parent one step closer
+        int count = 0;
+        int head = 0;
+        int tail = 0;
+        for (int n = 0; n < 4; n++) {
+            int j = neighbour(c, w, n);
+            if (j >= 0 && dist[j] == old + 1) {
+                queued[j] = stamp;
+                queue[tail++] = j;
+            }
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            if (hasParent(cells, dist, w, v)) continue;
+            mark[v] = stamp;
+            affected[count++] = v;
+            if (count > cells.length / 2) {
+                recompute();
+                return;
+            }
+            for (int n = 0; n < 4; n++) {
+                int j = neighbour(v, w, n);
+                if (j >= 0 && queued[j] != stamp && dist[j] == dist[v] + 1) {
+                    queued[j] = stamp;
+                    queue[tail++] = j;
+                }
+            }
+        }
+
+        // 2. Seeds: affected cells next to an unaffected cell, keyed by tentative distance
+        int[] previous = new int[count];
+        long[] seeds = new long[count];
+        int seedCount = 0;
+        for (int k = 0; k < count; k++) {
+            int v = affected[k];
+            previous[k] = dist[v];
+            int best = Integer.MAX_VALUE;
+            for (int n = 0; n < 4; n++) {
+                int j = neighbour(v, w, n);
+                if (j >= 0 && mark[j] != stamp && dist[j] != DistanceField.UNREACHABLE && !MazeModel.isWall(cells[j])) {
+                    best = Math.min(best, dist[j] + 1);
+                }
+            }
+            if (best != Integer.MAX_VALUE) seeds[seedCount++] = ((long) best << 32) | v;
+        }
+        for (int k = 0; k < count; k++) dist[affected[k]] = DistanceField.UNREACHABLE;
+        Arrays.sort(seeds, 0, seedCount);
+
+        // 3. Settle: merge the sorted seeds with a FIFO of relaxed cells
+        relax(cells, dist, w, 0, 0, seeds, seedCount, dirty);
+        for (int k = 0; k < count; k++) {
+            if (dist[affected[k]] != previous[k]) dirty.add(affected[k]);
+        }
+        finish(dirty);
+    }
+
+    private boolean hasParent(byte[] cells, int[] dist, int w, int v) {
+        for (int n = 0; n < 4; n++) {
+            int j = neighbour(v, w, n);
+            if (j >= 0 && mark[j] != stamp && !MazeModel.isWall(cells[j])
+                    && dist[j] != DistanceField.UNREACHABLE && dist[j] == dist[v] - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * BFS over queue[head, tail), merged in distance order with seeds (packed
+     * distance << 32 | index, sorted). Only ever lowers distances.
+     */
+    private void relax(byte[] cells, int[] dist, int w, int head, int tail,
+                       long[] seeds, int seedCount, Dirty dirty) {
+        int s = 0;
+        while (head < tail || s < seedCount) {
+            int u;
+            if (s < seedCount && (head == tail || (int) (seeds[s] >>> 32) <= dist[queue[head]])) {
+                u = (int) seeds[s];
+                int d = (int) (seeds[s++] >>> 32);
+                if (dist[u] != DistanceField.UNREACHABLE && dist[u] <= d) continue;
+                dist[u] = d;
+            } else {
+                u = queue[head++];
+            }
+            int d = dist[u] + 1;
+            for (int n = 0; n < 4; n++) {
+                int j = neighbour(u, w, n);
+                if (j < 0 || MazeModel.isWall(cells[j])) continue;
+                if (dist[j] == DistanceField.UNREACHABLE || dist[j] > d) {
+                    dist[j] = d;
+                    queue[tail++] = j;
+                    dirty.add(j);
+                }
+            }
+        }
+    }
+
+    private void finish(Dirty dirty) {
+        repairs++;
+        listener.distancesChanged(dirty.minX, dirty.minY, dirty.maxX, dirty.maxY);
+    }
+
+    private int neighbour(int i, int w, int n) {
+        int x = i % w;
+        return switch (n) {
+            case 0 -> x < w - 1 ? i + 1 : -1;
+            case 1 -> x > 0 ? i - 1 : -1;
+            case 2 -> i + w < shadow.length ? i + w : -1;
+            default -> i >= w ? i - w : -1;
+        };
+    }
+
+    /** Bounding rectangle of the cells whose distance changed. */
+    private static class Dirty {
+        final int w;
+        int minX, minY, maxX, maxY;
+
+        Dirty(int w, int first) {
+            this.w = w;
+            minX = maxX = first % w;
+            minY = maxY = first / w;
+        }
+
+        void add(int i) {
+            int x = i % w;
+            int y = i / w;
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+    }
+}
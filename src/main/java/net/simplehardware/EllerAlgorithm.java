@@ -0,0 +1,147 @@
+package net.simplehardware;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Eller's algorithm: builds the maze one row of rooms at a time, keeping only
+ * the set labels of the current row. Memory is O(width) regardless of height,
+ * so {@link #stream} can write mazes far larger than would fit in a
+ * {@link MazeModel}.
+ */
+public class EllerAlgorithm implements MazeAlgorithm {
+
+    /** Receives each finished grid row, top to bottom. The array is reused. */
+    interface RowSink {
+        void row(int y, byte[] cells) throws IOException;
+    }
+
+    @Override
+    public String getName() {
+        return "Eller";
+    }
+
+    @Override
+    public void carve(byte[] cells, int w, int h, SplittableRandom rng) {
+        try {
+            generate(w, h, rng, (y, row) -> System.arraycopy(row, 0, cells, y * w, w));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory sink never throws
+        }
+    }
+
+    /**
+     * Writes a complete game-engine JSON document for a w x h maze to out,
+     * encoding each row into the "/"-separated maze string as it is produced.
+     */
+    public static void stream(OutputStream out, String id, String name, int w, int h, long seed)
+            throws IOException {
+        if (w < 5 || h < 5) throw new IllegalArgumentException("Maze must be at least 5x5");
+        out.write(MazeCodec.header(id, name, 0));
+
+        byte[] line = new byte[2 * w + 1];
+        generate(w, h, new SplittableRandom(seed), (y, row) -> {
+            int n = 0;
+            if (y > 0) line[n++] = '/';
+            for (int x = 0; x < w; x++) {
+                byte c = row[x] == MazeModel.WALL ? (byte) '#' : (byte) ' ';
+                line[n++] = c;
+                line[n++] = c;
+            }
+            out.write(line, 0, n);
+        });
+
+        out.write(MazeCodec.footer());
+        out.flush();
+    }
+
+    static void generate(int w, int h, SplittableRandom rng, RowSink sink) throws IOException {
+        int rw = (w - 1) / 2;
+        int rh = (h - 1) / 2;
+
+        byte[] row = new byte[w];
+        int[] label = new int[rw];      // set label per column, -1 = fresh cell
+        int[] parent = new int[rw];     // union-find over labels, reset per row
+        int[] freeLabels = new int[rw];
+        boolean[] used = new boolean[rw];
+        boolean[] down = new boolean[rw];
+        int[] downs = new int[rw];      // per label: cells carving downwards
+        int[] seen = new int[rw];       // per label: cells visited so far
+        int[] pick = new int[rw];       // per label: column forced downwards
+
+        Arrays.fill(label, -1);
+        for (int i = 0; i < rw; i++) parent[i] = i;
+
+        // Top border
+        Arrays.fill(row, MazeModel.WALL);
+        sink.row(0, row);
+
+        for (int r = 0; r < rh; r++) {
+            boolean lastRow = r == rh - 1;
+
+            // Assign fresh labels to cells that were not reached from above
+            int free = 0;
+            Arrays.fill(used, false);
+            for (int c = 0; c < rw; c++) if (label[c] >= 0) used[label[c]] = true;
+            for (int l = rw - 1; l >= 0; l--) if (!used[l]) freeLabels[free++] = l;
+            for (int c = 0; c < rw; c++) if (label[c] < 0) label[c] = freeLabels[--free];
+
+            // Room row: join neighbours in different sets at random
+            Arrays.fill(row, MazeModel.WALL);
+            for (int c = 0; c < rw; c++) {
+                row[2 * c + 1] = MazeModel.FLOOR;
+                if (c + 1 < rw) {
+                    int a = find(parent, label[c]);
+                    int b = find(parent, label[c + 1]);
+                    if (a != b && (lastRow || rng.nextBoolean())) {
+                        parent[b] = a;
+                        row[2 * c + 2] = MazeModel.FLOOR;
+                    }
+                }
+            }
+            sink.row(2 * r + 1, row);
+            for (int c = 0; c < rw; c++) label[c] = find(parent, label[c]);
+            if (lastRow) break;
+
+            // Wall row: every set needs at least one passage down
+            Arrays.fill(downs, 0);
+            for (int c = 0; c < rw; c++) {
+                down[c] = rng.nextBoolean();
+                if (down[c]) downs[label[c]]++;
+            }
+            Arrays.fill(seen, 0);
+            for (int c = 0; c < rw; c++) {
+                int l = label[c];
+                if (downs[l] > 0) continue;
+                // Reservoir sample one column of the set
+                if (rng.nextInt(++seen[l]) == 0) pick[l] = c;
+            }
+            for (int l = 0; l < rw; l++) if (seen[l] > 0) down[pick[l]] = true;
+
+            Arrays.fill(row, MazeModel.WALL);
+            for (int c = 0; c < rw; c++) {
+                if (down[c]) {
+                    row[2 * c + 1] = MazeModel.FLOOR;
+                } else {
+                    label[c] = -1;
+                }
+            }
+            sink.row(2 * r + 2, row);
+            for (int i = 0; i < rw; i++) parent[i] = i;
+        }
+
+        // Bottom border, plus the spare row when h is even
+        Arrays.fill(row, MazeModel.WALL);
+        for (int y = 2 * rh; y < h; y++) sink.row(y, row);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
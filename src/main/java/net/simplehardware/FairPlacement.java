@@ -0,0 +1,283 @@
+package net.simplehardware;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Places START, form and FINISH cells for every player so that each player's
+ * start -> A -> B -> ... -> finish route has roughly the same length.
+ *
+ * <p>Starts are spread out by farthest-point sampling over a multi-source BFS
+ * field. Each later item is then placed one round at a time: every player's
+ * BFS from its previous item runs in parallel, and the next item goes on a
+ * free cell whose distance is closest to the remaining route budget split
+ * over the remaining segments.
+ */
+public class FairPlacement {
+
+    public static final int DEFAULT_FORMS = 3;
+    public static final double DEFAULT_TOLERANCE = 0.05;
+
+    private static final int ATTEMPTS = 8;
+    private static final int CANDIDATES = 16;
+
+    private final int players;
+    private final int formsPerPlayer;
+    private final double tolerance;
+
+    /** Route lengths and positions of the last placement. */
+    public static class Result {
+        public final int[] routeLengths;
+        public final int[] starts;
+        public final int[] finishes;
+        public final int[][] forms;
+        public final int targetLength;
+        /** False when no attempt got the spread within the tolerance and the closest one was kept. */
+        public boolean withinTolerance = true;
+
+        Result(int players, int forms, int targetLength) {
+            this.routeLengths = new int[players];
+            this.starts = new int[players];
+            this.finishes = new int[players];
+            this.forms = new int[players][forms];
+            this.targetLength = targetLength;
+        }
+
+        public int spread() {
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            for (int len : routeLengths) {
+                min = Math.min(min, len);
+                max = Math.max(max, len);
+            }
+            return max - min;
+        }
+    }
+
+    public FairPlacement(int players) {
+        this(players, DEFAULT_FORMS, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param tolerance allowed difference between the longest and shortest
+     *                  route, as a fraction of the target route length
+     */
+    public FairPlacement(int players, int formsPerPlayer, double tolerance) {
+        if (players < 1 || players > MazeModel.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Players must be 1-" + MazeModel.MAX_PLAYERS);
+        }
+        if (formsPerPlayer < 0 || formsPerPlayer > 26) {
+            throw new IllegalArgumentException("Forms per player must be 0-26");
+        }
+        this.players = players;
+        this.formsPerPlayer = formsPerPlayer;
+        this.tolerance = tolerance;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public int getFormsPerPlayer() {
+        return formsPerPlayer;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public boolean isFair(Result r) {
+        return r.spread() <= Math.max(1, Math.round(tolerance * r.targetLength));
+    }
+
+    /**
+     * Writes the best placement found into cells. Returns null if the maze
+     * has too few floor cells for all the items. If no attempt is within the
+     * tolerance, the one with the smallest spread is written and its
+     * {@link Result#withinTolerance} is false.
+     */
+    public Result place(byte[] cells, int w, int h, SplittableRandom rng) {
+        return place(cells, w, h, rng, Progress.NONE);
+    }
+
+    /** As {@link #place(byte[], int, int, SplittableRandom)}, reporting once per attempt. */
+    public Result place(byte[] cells, int w, int h, SplittableRandom rng, Progress progress) {
+        int floor = 0;
+        for (byte c : cells) if (c == MazeModel.FLOOR) floor++;
+        if (floor < players * (formsPerPlayer + 2)) return null;
+
+        int threads = Math.min(players, Runtime.getRuntime().availableProcessors());
+        BlockingQueue<DistanceField> fields = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) fields.add(new DistanceField(w, h));
+
+        Result best = null;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            progress.update("Placing players", (double) attempt / ATTEMPTS);
+            Result r = attempt(cells, fields, rng.split());
+            if (r == null) continue;
+            if (best == null || r.spread() < best.spread()) best = r;
+            if (isFair(best)) break;
+        }
+        if (best == null) return null;
+        best.withinTolerance = isFair(best);
+        progress.update("Placing players", 1);
+
+        for (int p = 0; p < players; p++) {
+            int pid = p + 1;
+            cells[best.starts[p]] = MazeModel.pack(Mode.START, pid);
+            for (int f = 0; f < formsPerPlayer; f++) {
+                cells[best.forms[p][f]] = MazeModel.pack(Mode.values()[Mode.FORM_A.ordinal() + f], pid);
+            }
+            cells[best.finishes[p]] = MazeModel.pack(Mode.FINISH, pid);
+        }
+        return best;
+    }
+
+    private Result attempt(byte[] cells, BlockingQueue<DistanceField> fields, SplittableRandom rng) {
+        boolean[] taken = new boolean[cells.length];
+        int[] current = new int[players];
+
+        // --- Spawns: farthest-point sampling over multi-source BFS ---
+        DistanceField field = fields.peek();
+        current[0] = randomFloor(cells, rng);
+        taken[current[0]] = true;
+        for (int p = 1; p < players; p++) {
+            field.compute(cells, Arrays.copyOf(current, p));
+            current[p] = pickCell(field.distances(), taken, Integer.MAX_VALUE, rng)[0];
+            if (current[p] < 0) return null;
+            taken[current[p]] = true;
+        }
+
+        // Budget per segment: half the smallest eccentricity of any start
+        int[] eccentricity = new int[players];
+        runParallel(cells, fields, current, (p, f) -> eccentricity[p] = f.getMaxDistance());
+        int segment = Math.max(1, Arrays.stream(eccentricity).min().orElse(0) / 2);
+        int segments = formsPerPlayer + 1;
+
+        Result result = new Result(players, formsPerPlayer, segment * segments);
+        System.arraycopy(current, 0, result.starts, 0, players);
+
+        // --- Forms A.. and finish, one round per segment ---
+        for (int s = 0; s < segments; s++) {
+            int remaining = segments - s;
+            int[][] candidates = new int[players][];
+            int[][] distances = new int[players][];
+            SplittableRandom[] rngs = new SplittableRandom[players];
+            for (int p = 0; p < players; p++) rngs[p] = rng.split();
+
+            runParallel(cells, fields, current, (p, f) -> {
+                int target = (result.targetLength - result.routeLengths[p] + remaining - 1) / remaining;
+                candidates[p] = pickCell(f.distances(), taken, Math.max(1, target), rngs[p]);
+                distances[p] = new int[CANDIDATES];
+                for (int c = 0; c < CANDIDATES; c++) {
+                    if (candidates[p][c] >= 0) distances[p][c] = f.get(candidates[p][c]);
+                }
+            });
+
+            for (int p = 0; p < players; p++) {
+                int c = firstFree(candidates[p], taken);
+                int cell;
+                int dist;
+                if (c >= 0) {
+                    cell = candidates[p][c];
+                    dist = distances[p][c];
+                } else {
+                    // All candidates went to earlier players this round
+                    DistanceField f = fields.peek();
+                    f.compute(cells, current[p]);
+                    int target = (result.targetLength - result.routeLengths[p] + remaining - 1) / remaining;
+                    cell = pickCell(f.distances(), taken, Math.max(1, target), rngs[p])[0];
+                    if (cell < 0) return null;
+                    dist = f.get(cell);
+                }
+                taken[cell] = true;
+                result.routeLengths[p] += dist;
+                current[p] = cell;
+                if (s < formsPerPlayer) result.forms[p][s] = cell;
+                else result.finishes[p] = cell;
+            }
+        }
+        return result;
+    }
+
+    private interface FieldTask {
+        void run(int player, DistanceField field);
+    }
+
+    /** Runs one BFS per player in parallel, borrowing buffers from the pool. */
+    private void runParallel(byte[] cells, BlockingQueue<DistanceField> fields, int[] sources, FieldTask task) {
+        IntStream.range(0, players).parallel().forEach(p -> {
+            DistanceField f;
+            try {
+                f = fields.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            try {
+                f.compute(cells, sources[p]);
+                task.run(p, f);
+            } finally {
+                fields.add(f);
+            }
+        });
+    }
+
+    /**
+     * Returns up to CANDIDATES free cells whose distance is closest to target,
+     * chosen uniformly among ties. A target of MAX_VALUE picks the farthest
+     * cells. Unused slots are -1.
+     */
+    static int[] pickCell(int[] dist, boolean[] taken, int target, SplittableRandom rng) {
+        int[] picked = new int[CANDIDATES];
+        Arrays.fill(picked, -1);
+        long bestDelta = Long.MAX_VALUE;
+        int seen = 0;
+        for (int i = 0; i < dist.length; i++) {
+            int d = dist[i];
+            if (d <= 0 || taken[i]) continue;
+            long delta = Math.abs((long) target - d);
+            if (delta > bestDelta) continue;
+            if (delta < bestDelta) {
+                bestDelta = delta;
+                seen = 0;
+                Arrays.fill(picked, -1);
+            }
+            // Reservoir sampling over all cells at the best delta
+            if (seen < CANDIDATES) {
+                picked[seen] = i;
+            } else {
+                int j = rng.nextInt(seen + 1);
+                if (j < CANDIDATES) picked[j] = i;
+            }
+            seen++;
+        }
+        // Shuffle so ties are not biased towards the top of the grid
+        int n = Math.min(seen, CANDIDATES);
+        for (int i = n - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int t = picked[i];
+            picked[i] = picked[j];
+            picked[j] = t;
+        }
+        return picked;
+    }
+
+    /** Index of the first candidate not taken yet, or -1. */
+    private static int firstFree(int[] candidates, boolean[] taken) {
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i] >= 0 && !taken[candidates[i]]) return i;
+        }
+        return -1;
+    }
+
+    private static int randomFloor(byte[] cells, SplittableRandom rng) {
+        while (true) {
+            int i = rng.nextInt(cells.length);
+            if (cells[i] == MazeModel.FLOOR) return i;
+        }
+    }
+}
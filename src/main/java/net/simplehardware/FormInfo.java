@@ -0,0 +1,14 @@
+package net.simplehardware;
+
+public class FormInfo {
+
+    public char id;
+    public String name;
+
+    public FormInfo() {}
+
+    public FormInfo(char id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
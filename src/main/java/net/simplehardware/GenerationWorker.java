@@ -0,0 +1,125 @@
+package net.simplehardware;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import javax.swing.*;
+
+/**
+ * Generates a maze off the event thread into a detached model, then swaps it
+ * into the grid in one batch. A cancelled or failed run never touches the
+ * grid, so the previous maze stays as it was. If the grid was resized in the
+ * meantime, the user is asked before the result replaces it.
+ */
+public class GenerationWorker extends ProgressWorker<MazeModel> {
+
+    private final MazeGrid grid;
+    private final int width;
+    private final int height;
+    private final FairPlacement placement;
+    private final MazeAlgorithm algorithm;
+    private final long seed;
+    private final boolean symmetric;
+    private final int candidates;
+    private final Runnable onFinished;
+    private volatile boolean unfair; // placement kept although outside the tolerance
+
+    /**
+     * phaseListener receives phase names on the event thread; onFinished runs
+     * on the event thread however the run ends. Progress is reported through
+     * the "progress" property, 0-100.
+     */
+    public GenerationWorker(MazeGrid grid, FairPlacement placement, MazeAlgorithm algorithm,
+                            long seed, Consumer<String> phaseListener, Runnable onFinished) {
+        this(grid, placement, algorithm, seed, false, phaseListener, onFinished);
+    }
+
+    /** With symmetric set, generates through {@link SymmetricGenerator}; placement must have 2 or 4 players. */
+    public GenerationWorker(MazeGrid grid, FairPlacement placement, MazeAlgorithm algorithm, long seed,
+                            boolean symmetric, Consumer<String> phaseListener, Runnable onFinished) {
+        this(grid, placement, algorithm, seed, symmetric, 1, phaseListener, onFinished);
+    }
+
+    /**
+     * With more than one candidate, scores seeds seed .. seed + candidates - 1
+     * with a {@link CandidateSearch} and keeps the best.
+     */
+    public GenerationWorker(MazeGrid grid, FairPlacement placement, MazeAlgorithm algorithm, long seed,
+                            boolean symmetric, int candidates,
+                            Consumer<String> phaseListener, Runnable onFinished) {
+        super(phaseListener);
+        this.grid = grid;
+        this.width = grid.getModel().getWidth();
+        this.height = grid.getModel().getHeight();
+        this.placement = placement;
+        this.algorithm = algorithm;
+        this.seed = seed;
+        this.symmetric = symmetric;
+        this.candidates = candidates;
+        this.onFinished = onFinished;
+    }
+
+    @Override
+    protected MazeModel doInBackground() {
+        MazeModel detached = new MazeModel(width, height);
+        if (candidates > 1) {
+            CandidateSearch search = new CandidateSearch(width, height, placement, algorithm, symmetric);
+            CandidateSearch.Result result = search.search(seed, candidates, 1, ForkJoinPool.commonPool(), progress());
+            if (!result.best.isEmpty()) {
+                detached.setCells(width, height, result.best.get(0).cells);
+                return detached;
+            }
+            // Every candidate failed: fall through and keep the first seed's structure
+        }
+        // A grid too small for every player still gets its carved structure
+        if (symmetric) {
+            SymmetricGenerator.generate(detached, placement, algorithm, seed, progress());
+        } else {
+            FairPlacement.Result placed = LabyrinthGenerator.generate(detached, placement, algorithm, seed, progress());
+            unfair = placed != null && !placed.withinTolerance;
+        }
+        return detached;
+    }
+
+    @Override
+    protected void done() {
+        try {
+            if (isCancelled()) return;
+            MazeModel result = get();
+            MazeModel model = grid.getModel();
+            if (model.getWidth() != width || model.getHeight() != height) {
+                // Resized while generating: applying would silently undo the resize
+                int answer = JOptionPane.showConfirmDialog(
+                    grid.getScrollPane(),
+                    String.format("The grid was resized to %dx%d during generation. "
+                        + "Replace it with the generated %dx%d maze?",
+                        model.getWidth(), model.getHeight(), width, height),
+                    "Generation finished",
+                    JOptionPane.YES_NO_OPTION
+                );
+                if (answer != JOptionPane.YES_OPTION) return;
+            }
+            grid.batch(() -> model.setCells(width, height, result.cells()));
+            if (unfair) {
+                JOptionPane.showMessageDialog(
+                    grid.getScrollPane(),
+                    String.format("Route lengths could not be brought within %.0f%% of each other;"
+                        + " the closest placement found was kept.", 100 * placement.getTolerance())
+                );
+            }
+        } catch (InterruptedException | CancellationException e) {
+            // Cancelled: the grid keeps its previous maze
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (!(cause instanceof CancellationException)) {
+                JOptionPane.showMessageDialog(
+                    grid.getScrollPane(),
+                    "Generation failed: " + cause.getMessage()
+                );
+            }
+        } finally {
+            onFinished.run();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package net.simplehardware;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Randomized Kruskal over a shuffled edge list, backed by a flat int[]
+ * union-find. Produces many short dead ends and an even texture.
+ */
+public class KruskalAlgorithm implements MazeAlgorithm {
+
+    @Override
+    public String getName() {
+        return "Kruskal";
+    }
+
+    @Override
+    public void carve(byte[] cells, int w, int h, SplittableRandom rng) {
+        int rw = (w - 1) / 2;
+        int rh = (h - 1) / 2;
+        int rooms = rw * rh;
+
+        // Edge e = room * 2 + dir, dir 0 = east neighbour, 1 = south neighbour
+        int[] edges = new int[rooms * 2];
+        int count = 0;
+        for (int ry = 0; ry < rh; ry++) {
+            for (int rx = 0; rx < rw; rx++) {
+                int room = ry * rw + rx;
+                if (rx + 1 < rw) edges[count++] = room * 2;
+                if (ry + 1 < rh) edges[count++] = room * 2 + 1;
+            }
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int t = edges[i];
+            edges[i] = edges[j];
+            edges[j] = t;
+        }
+
+        // Roots hold their negated set size, other entries their parent
+        int[] parent = new int[rooms];
+        Arrays.fill(parent, -1);
+
+        for (int ry = 0; ry < rh; ry++) {
+            for (int rx = 0; rx < rw; rx++) {
+                cells[(2 * ry + 1) * w + 2 * rx + 1] = MazeModel.FLOOR;
+            }
+        }
+
+        int joined = 0;
+        for (int i = 0; i < count && joined < rooms - 1; i++) {
+            int room = edges[i] >> 1;
+            boolean south = (edges[i] & 1) != 0;
+            int other = south ? room + rw : room + 1;
+
+            int a = find(parent, room);
+            int b = find(parent, other);
+            if (a == b) continue;
+            if (parent[a] > parent[b]) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            parent[a] += parent[b];
+            parent[b] = a;
+            joined++;
+
+            int x = 2 * (room % rw) + 1;
+            int y = 2 * (room / rw) + 1;
+            if (south) y++;
+            else x++;
+            cells[y * w + x] = MazeModel.FLOOR;
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        int root = i;
+        while (parent[root] >= 0) root = parent[root];
+        while (parent[i] >= 0 && parent[i] != root) {
+            int next = parent[i];
+            parent[i] = root;
+            i = next;
+        }
+        return root;
+    }
+}
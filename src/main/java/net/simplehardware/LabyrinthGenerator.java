@@ -1,55 +1,102 @@
 package net.simplehardware;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class LabyrinthGenerator {
 
-    private static final Random RNG = new Random();
-
     public static boolean generateBalancedMaze(MazeGrid grid, int players) {
-        int n = grid.getGridSize();
-        if (n < 5) return false;
+        return generateBalancedMaze(grid.getModel(), players);
+    }
 
-        CellButton[][] cells = grid.getCells();
+    public static boolean generateBalancedMaze(MazeModel model, int players) {
+        return generateBalancedMaze(model, players, ThreadLocalRandom.current().nextLong());
+    }
 
-        // --- Step 1: generate structural maze ---
-        generateRecursiveBacktrackerMaze(cells);
-        return true;
+    /** Same seed and size always produce the same maze. */
+    public static boolean generateBalancedMaze(MazeModel model, int players, long seed) {
+        return generateBalancedMaze(model, players, MazeAlgorithm.BACKTRACKER, seed);
     }
 
-    // ------------------------------------------------
-    // 1. Recursive Backtracking Maze Generator
-    // ------------------------------------------------
-    private static void generateRecursiveBacktrackerMaze(CellButton[][] cells) {
-        int n = cells.length;
-        // Fill with walls
-        for (int y = 0; y < n; y++)
-            for (CellButton[] cell : cells) cell[y].setMode(Mode.WALL, 0);
+    public static boolean generateBalancedMaze(
+            MazeModel model, int players, MazeAlgorithm algorithm, long seed) {
+        return generateBalancedMaze(model, new FairPlacement(players), algorithm, seed);
+    }
 
-        boolean[][] visited = new boolean[n][n];
-        int startX = (RNG.nextInt(n / 2)) * 2 + 1;
-        int startY = (RNG.nextInt(n / 2)) * 2 + 1;
+    /**
+     * Carves the maze and places every player's start, forms and finish.
+     * Returns false if the grid is too small for the requested placement or
+     * the route lengths could not be brought within the placement's tolerance;
+     * in the latter case the closest placement is still written.
+     */
+    public static boolean generateBalancedMaze(
+            MazeModel model, FairPlacement placement, MazeAlgorithm algorithm, long seed) {
+        return generateBalancedMaze(model, placement, algorithm, seed, Progress.NONE);
+    }
 
-        dfsMaze(cells, visited, startX, startY);
+    /**
+     * As above, reporting progress between phases and placement attempts.
+     * If progress throws, the model is left partly generated, so callers that
+     * may cancel should generate into a detached model.
+     */
+    public static boolean generateBalancedMaze(MazeModel model, FairPlacement placement,
+                                               MazeAlgorithm algorithm, long seed, Progress progress) {
+        FairPlacement.Result result = generate(model, placement, algorithm, seed, progress);
+        return result != null && result.withinTolerance;
     }
 
-    private static void dfsMaze(CellButton[][] cells, boolean[][] visited, int x, int y) {
-        int n = cells.length;
-        visited[x][y] = true;
-        cells[x][y].setMode(Mode.FLOOR, 0);
+    /** As {@link #generateBalancedMaze}, returning the placement, or null if it failed. */
+    static FairPlacement.Result generate(MazeModel model, FairPlacement placement,
+                                         MazeAlgorithm algorithm, long seed, Progress progress) {
+        int w = model.getWidth();
+        int h = model.getHeight();
+        if (w < 5 || h < 5) return null;
+        SplittableRandom rng = new SplittableRandom(seed);
+        MazeEvents.Generation event = new MazeEvents.Generation();
+        event.begin();
+        long start = System.nanoTime();
 
-        int[][] dirs = {{2, 0}, {-2, 0}, {0, 2}, {0, -2}};
-        Collections.shuffle(Arrays.asList(dirs), RNG);
+        // --- Step 1: generate structural maze ---
+        progress.update("Carving " + algorithm.getName(), 0);
+        generateStructure(model.cells(), w, h, algorithm, rng);
+        long carveNanos = System.nanoTime() - start;
+        long carved = 0;
+        for (byte c : model.cells()) if (c == MazeModel.FLOOR) carved++;
+
+        // --- Step 2: place starts, forms and finishes ---
+        FairPlacement.Result result = placement.place(
+                model.cells(), w, h, rng.split(), progress.range(0.3, 1));
+        model.fireAllChanged();
+
+        recordGeneration(event, start, carveNanos, carved, algorithm.getName(),
+                w, h, placement.getPlayers(), result != null);
+        return result;
+    }
 
-        for (int[] d : dirs) {
-            int nx = x + d[0];
-            int ny = y + d[1];
-            if (nx > 0 && ny > 0 && nx < n - 1 && ny < n - 1 && !visited[nx][ny]) {
-                // carve wall between (x,y) and (nx,ny)
-                cells[x + d[0] / 2][y + d[1] / 2].setMode(Mode.FLOOR, 0);
-                dfsMaze(cells, visited, nx, ny);
-            }
+    /** Shared by every generation mode: timers, counters and the JFR event. */
+    static void recordGeneration(MazeEvents.Generation event, long start, long carveNanos, long carved,
+                                 String algorithm, int w, int h, int players, boolean placed) {
+        Metrics.timer("generation").record(System.nanoTime() - start);
+        Metrics.timer("generation.carve").record(carveNanos);
+        Metrics.count("generation.cellsCarved", carved);
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm;
+            event.width = w;
+            event.height = h;
+            event.players = players;
+            event.cellsCarved = carved;
+            event.carveNanos = carveNanos;
+            event.placed = placed;
+            event.commit();
         }
     }
 
+    static void generateStructure(
+            byte[] cells, int w, int h, MazeAlgorithm algorithm, SplittableRandom rng) {
+        // Fill with walls
+        Arrays.fill(cells, MazeModel.WALL);
+        algorithm.carve(cells, w, h, rng);
+    }
+
 }
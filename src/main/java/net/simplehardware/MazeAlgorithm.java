@@ -0,0 +1,34 @@
+package net.simplehardware;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Strategy for carving a perfect maze. Rooms sit on odd coordinates and the
+ * cells between two rooms are the passages, so a w x h grid holds
+ * ((w - 1) / 2) x ((h - 1) / 2) rooms. Implementations write straight into
+ * the row-major cell array, which arrives filled with walls.
+ */
+public interface MazeAlgorithm {
+
+    MazeAlgorithm BACKTRACKER = new BacktrackerAlgorithm();
+    MazeAlgorithm KRUSKAL = new KruskalAlgorithm();
+    MazeAlgorithm PRIM = new PrimAlgorithm();
+    MazeAlgorithm WILSON = new WilsonAlgorithm();
+    MazeAlgorithm ELLER = new EllerAlgorithm();
+
+    String getName();
+
+    void carve(byte[] cells, int w, int h, SplittableRandom rng);
+
+    static List<MazeAlgorithm> all() {
+        return List.of(BACKTRACKER, KRUSKAL, PRIM, WILSON, ELLER);
+    }
+
+    static MazeAlgorithm byName(String name) {
+        for (MazeAlgorithm a : all()) {
+            if (a.getName().equalsIgnoreCase(name)) return a;
+        }
+        throw new IllegalArgumentException("Unknown algorithm: " + name);
+    }
+}
@@ -0,0 +1,252 @@
+package net.simplehardware;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Difficulty and fairness statistics for each player: the route length
+ * through its forms, and the shape of the region reachable from its start
+ * (dead ends, branching, corridor lengths). Players are analysed in parallel,
+ * each borrowing a BFS workspace from a pool, so one instance can be reused
+ * for many mazes of any size.
+ */
+public class MazeAnalyzer {
+
+    /** Corridors this long or longer share the last histogram bucket. */
+    public static final int MAX_CORRIDOR_BUCKET = 64;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    public static class PlayerStats {
+        public int player;
+        /** START -> forms in letter order -> FINISH, -1 if missing or unreachable. */
+        public int routeLength = -1;
+        public int forms;
+        public int reachableCells;
+        /** Reachable cells over all non-wall cells in the maze. */
+        public double reachableShare;
+        public int deadEnds;
+        public int junctions;
+        /** Average onward choices at a junction, walking away from the start; 0 without junctions. */
+        public double branchingFactor;
+        public int corridors;
+        public int longestCorridor;
+        /** Index n counts corridors of n cells; the last bucket holds everything longer. */
+        public int[] corridorHistogram;
+    }
+
+    public static class Report {
+        public int width;
+        public int height;
+        public int openCells;
+        public List<PlayerStats> players = new ArrayList<>();
+
+        /** Longest route minus shortest, over players with a complete route. */
+        public int routeSpread() {
+            int min = Integer.MAX_VALUE;
+            int max = -1;
+            for (PlayerStats s : players) {
+                if (s.routeLength < 0) continue;
+                min = Math.min(min, s.routeLength);
+                max = Math.max(max, s.routeLength);
+            }
+            return max < 0 ? 0 : max - min;
+        }
+
+        public String toJson() {
+            return GSON.toJson(this);
+        }
+    }
+
+    /** Per-thread buffers: one BFS plus a stamped visit marker for corridor walks. */
+    private static class Workspace {
+        final DistanceField field = new DistanceField(0, 0);
+        int[] mark = new int[0];
+        int stamp;
+
+        void ensureSize(int w, int h) {
+            field.ensureSize(w, h);
+            if (mark.length != w * h) {
+                mark = new int[w * h];
+                stamp = 0;
+            }
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                stamp = 1;
+            }
+        }
+    }
+
+    private final BlockingQueue<Workspace> workspaces;
+
+    public MazeAnalyzer() {
+        this(Math.min(MazeModel.MAX_PLAYERS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public MazeAnalyzer(int threads) {
+        workspaces = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) workspaces.add(new Workspace());
+    }
+
+    public Report analyze(MazeModel model) {
+        return analyze(model.cells(), model.getWidth(), model.getHeight());
+    }
+
+    public Report analyze(MazeLoader.Loaded maze) {
+        return analyze(maze.cells, maze.width, maze.height);
+    }
+
+    public Report analyze(byte[] cells, int w, int h) {
+        Report report = new Report();
+        report.width = w;
+        report.height = h;
+
+        // One pass to find every player's items
+        int[] starts = new int[MazeModel.MAX_PLAYERS + 1];
+        int[] finishes = new int[MazeModel.MAX_PLAYERS + 1];
+        int[][] forms = new int[MazeModel.MAX_PLAYERS + 1][26];
+        boolean[] present = new boolean[MazeModel.MAX_PLAYERS + 1];
+        Arrays.fill(starts, -1);
+        Arrays.fill(finishes, -1);
+        for (int[] f : forms) Arrays.fill(f, -1);
+        for (int i = 0; i < cells.length; i++) {
+            byte c = cells[i];
+            if (!MazeModel.isWall(c)) report.openCells++;
+            Mode mode = MazeModel.modeOf(c);
+            if (!mode.hasOwner() || mode == Mode.SHEET) continue;
+            int p = MazeModel.playerOf(c);
+            present[p] = true;
+            if (mode == Mode.START) starts[p] = i;
+            else if (mode == Mode.FINISH) finishes[p] = i;
+            else forms[p][mode.ordinal() - Mode.FORM_A.ordinal()] = i;
+        }
+
+        int[] players = IntStream.rangeClosed(1, MazeModel.MAX_PLAYERS).filter(p -> present[p]).toArray();
+        PlayerStats[] stats = new PlayerStats[players.length];
+        IntStream.range(0, players.length).parallel().forEach(k -> {
+            Workspace ws = borrow();
+            try {
+                int p = players[k];
+                stats[k] = analyzePlayer(ws, cells, w, h, p, starts[p], forms[p], finishes[p], report.openCells);
+            } finally {
+                workspaces.add(ws);
+            }
+        });
+        report.players.addAll(Arrays.asList(stats));
+        return report;
+    }
+
+    private Workspace borrow() {
+        try {
+            return workspaces.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static PlayerStats analyzePlayer(Workspace ws, byte[] cells, int w, int h, int player,
+                                             int start, int[] forms, int finish, int openCells) {
+        PlayerStats s = new PlayerStats();
+        s.player = player;
+        for (int f : forms) if (f >= 0) s.forms++;
+        s.corridorHistogram = new int[0];
+        if (start < 0) return s;
+        ws.ensureSize(w, h);
+        DistanceField field = ws.field;
+
+        // --- Route: start -> forms in letter order -> finish ---
+        if (finish >= 0) {
+            int from = start;
+            int total = 0;
+            for (int f = 0; f <= 26 && total >= 0; f++) {
+                int target = f < 26 ? forms[f] : finish;
+                if (target < 0) continue;
+                field.compute(cells, from);
+                int d = field.get(target);
+                total = d == DistanceField.UNREACHABLE ? -1 : total + d;
+                from = target;
+            }
+            s.routeLength = total;
+        }
+
+        // --- Shape of the region reachable from the start ---
+        field.compute(cells, start);
+        int[] dist = field.distances();
+        int[] order = field.order();
+        s.reachableCells = field.getReached();
+        s.reachableShare = openCells == 0 ? 0 : (double) s.reachableCells / openCells;
+
+        int[] histogram = new int[MAX_CORRIDOR_BUCKET + 1];
+        long choices = 0;
+        for (int k = 0; k < s.reachableCells; k++) {
+            int i = order[k];
+            int x = i % w;
+            int degree = 0;
+            int kids = 0;
+            for (int n = 0; n < 4; n++) {
+                int j = neighbour(i, x, w, h, n);
+                if (j < 0 || MazeModel.isWall(cells[j])) continue;
+                degree++;
+                if (dist[j] == dist[i] + 1) kids++;
+            }
+            if (degree == 1) {
+                s.deadEnds++;
+            } else if (degree >= 3) {
+                s.junctions++;
+                choices += kids;
+            } else if (degree == 2 && ws.mark[i] != ws.stamp) {
+                int length = walkCorridor(ws, cells, w, h, i);
+                histogram[Math.min(length, MAX_CORRIDOR_BUCKET)]++;
+                s.corridors++;
+                s.longestCorridor = Math.max(s.longestCorridor, length);
+            }
+        }
+        s.branchingFactor = s.junctions == 0 ? 0 : (double) choices / s.junctions;
+        s.corridorHistogram = Arrays.copyOf(histogram, Math.min(s.longestCorridor, MAX_CORRIDOR_BUCKET) + 1);
+        return s;
+    }
+
+    /** Marks and counts the run of two-neighbour cells through i, in both directions. */
+    private static int walkCorridor(Workspace ws, byte[] cells, int w, int h, int i) {
+        ws.mark[i] = ws.stamp;
+        int length = 1;
+        for (int n = 0; n < 4; n++) {
+            int prev = i;
+            int cur = neighbour(i, i % w, w, h, n);
+            while (cur >= 0 && !MazeModel.isWall(cells[cur]) && ws.mark[cur] != ws.stamp) {
+                int next = -1;
+                int degree = 0;
+                int x = cur % w;
+                for (int m = 0; m < 4; m++) {
+                    int j = neighbour(cur, x, w, h, m);
+                    if (j < 0 || MazeModel.isWall(cells[j])) continue;
+                    degree++;
+                    if (j != prev) next = j;
+                }
+                if (degree != 2) break;
+                ws.mark[cur] = ws.stamp;
+                length++;
+                prev = cur;
+                cur = next;
+            }
+        }
+        return length;
+    }
+
+    /** Index of neighbour n (east, west, south, north) of i, or -1 off the grid. */
+    private static int neighbour(int i, int x, int w, int h, int n) {
+        return switch (n) {
+            case 0 -> x < w - 1 ? i + 1 : -1;
+            case 1 -> x > 0 ? i - 1 : -1;
+            case 2 -> i + w < w * h ? i + w : -1;
+            default -> i >= w ? i - w : -1;
+        };
+    }
+}
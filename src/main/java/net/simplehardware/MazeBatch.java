@@ -0,0 +1,642 @@
+package net.simplehardware;
+
+import com.google.gson.GsonBuilder;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Headless entry point for producing maps without the editor window.
+ *
+ * <pre>
+ * java -cp "target/classes:gson-2.13.2.jar" net.simplehardware.MazeBatch generate \
+ *     --count 1000 --size 51 --players 4 --seed 1 --out maps
+ * </pre>
+ */
+public class MazeBatch {
+
+    static final String DEFAULT_OUT_DIR = "mazes";
+
+    /** Bad command line: main prints the message and the usage and exits with status 2. */
+    static class UsageException extends IllegalArgumentException {
+        UsageException(String message) {
+            super(message);
+        }
+    }
+
+    /** Only main exits; the commands throw, so they can be reused and their pools shut down. */
+    public static void main(String[] args) throws Exception {
+        int status;
+        try {
+            status = run(args);
+        } catch (UsageException e) {
+            System.err.println(e.getMessage());
+            usage();
+            status = 2;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            status = 1;
+        }
+        if (status != 0) System.exit(status);
+    }
+
+    /** Runs one command and returns the exit status. */
+    static int run(String[] args) throws Exception {
+        String command = args.length > 0 && !args[0].startsWith("--") ? args[0] : "generate";
+        Options opts = Options.parse(args);
+        Recording recording = null;
+        if (opts.jfr != null) {
+            recording = new Recording(Configuration.getConfiguration("default"));
+            recording.start();
+        }
+
+        int status = 0;
+        switch (command) {
+            case "generate" -> generate(opts);
+            case "stream" -> stream(opts);
+            case "validate" -> status = validate(opts);
+            case "convert" -> convert(opts);
+            case "analyze" -> analyze(opts);
+            case "search" -> search(opts);
+            case "simulate" -> simulate(opts);
+            case "solve" -> solve(opts);
+            case "stress" -> stress(opts);
+            default -> throw new UsageException("Unknown command: " + command);
+        }
+
+        if (recording != null) {
+            recording.dump(Path.of(opts.jfr));
+            recording.close();
+        }
+        if (opts.metrics != null) writeMetrics(opts.metrics);
+        return status;
+    }
+
+    private static void writeMetrics(String target) throws IOException {
+        String json = Metrics.toJson();
+        if (target.equals("-")) {
+            System.out.println(json);
+        } else {
+            Files.writeString(Path.of(target), json + "\n", StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Output directory of the commands that write maze files. */
+    private static String outDir(Options opts) {
+        return opts.out != null ? opts.out : DEFAULT_OUT_DIR;
+    }
+
+    private static void usage() {
+        System.err.println("""
+            Usage: MazeBatch generate [options]
+                   MazeBatch stream --width W --height H [--seed N] [--out FILE]
+                   MazeBatch validate --in DIR [--threads N]
+                   MazeBatch convert --in DIR --out DIR [--to json|mazeb]
+                   MazeBatch analyze --in DIR [--out FILE]
+                   MazeBatch search [generate options] [--top K]
+                   MazeBatch simulate --in FILE|DIR [--runs N] [--policy P[,P...]] [--out FILE]
+                   MazeBatch solve --in FILE|DIR [--budget MB] [--out FILE]
+                   MazeBatch stress --width W --height H [--seed N] [--cache MB] [--out FILE]
+              --count N       number of mazes (default 100); search: candidates to score
+              --top K         search: how many of the best candidates to keep and write (default 5)
+              --size N        grid size, odd sizes work best (default 51)
+              --width/--height N  stream/stress: grid dimensions (default --size)
+              --players N     players per maze, 1-8 (default 4)
+              --forms N       forms per player, 0-26 (default 3)
+              --tolerance F   allowed route length spread as a fraction (default 0.05); mazes
+                              that cannot meet it count as failed and are not written
+              --seed N        first seed; maze i uses seed N+i (default 1)
+              --seeds A:B     seed range, inclusive; overrides --seed/--count
+              --algorithm A   backtracker, kruskal, prim, wilson or eller (default backtracker)
+              --layout L      fair (placement search) or symmetric (rotated copies, 2 or 4 players)
+              --out DIR       output directory (default ./mazes); stream/stress: output file;
+                              analyze/simulate/solve: JSON file (default stdout)
+              --in DIR        validate/convert/analyze: directory of .json or .mazeb files
+              --to FORMAT     convert: target format (default mazeb)
+              --runs N        simulate: games per maze, each on a virtual thread (default 1000)
+              --policy P,...  simulate: greedy, random or wall, one for all players or one per player
+              --max-turns N   simulate: give up after N turns (default 10 per open cell)
+              --budget MB     solve: memory for each player's distance tables and search before it stops (default 256)
+              --cache MB      stress: off-heap tile cache for the tiled map (default 64)
+              --index FILE    generate/convert: skip mazes whose rotation or mirror image is already
+                              in this index (default: mazes.index in the output directory; "none" to disable)
+              --threads N     worker threads (default: all cores)
+              --metrics FILE  write timers and counters as JSON when done ("-" for stdout)
+              --jfr FILE      record a Flight Recorder file, including MazeCreator events""");
+    }
+
+    // ------------------------------------------------
+    // generate
+    // ------------------------------------------------
+    static void generate(Options opts) throws InterruptedException, IOException {
+        File outDir = new File(outDir(opts));
+        createDirectory(outDir);
+        MazeIndex index = openIndex(opts, outDir);
+
+        // Bounded queue: the submitting thread runs tasks itself once the
+        // queue is full, so memory stays flat however large count is
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            opts.threads, opts.threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(opts.threads * 4),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try {
+            for (long i = 0; i < opts.count; i++) {
+                long seed = opts.seed + i;
+                pool.execute(() -> {
+                    try {
+                        MazeModel model = new MazeModel(opts.size);
+                        FairPlacement placement = new FairPlacement(opts.players, opts.forms, opts.tolerance);
+                        boolean placed = opts.symmetric
+                            ? SymmetricGenerator.generate(model, placement, opts.algorithm, seed)
+                            : LabyrinthGenerator.generateBalancedMaze(model, placement, opts.algorithm, seed);
+                        if (!placed) {
+                            failed.incrementAndGet();
+                            return;
+                        }
+                        String id = "maze-" + seed;
+                        File target = new File(outDir, id + ".json");
+                        if (exportUnique(index, MazeHash.canonical(model), id, target.toPath(), duplicates,
+                                () -> MazeCodec.writeJson(model, id, id, target.toPath()))) {
+                            written.incrementAndGet();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // Caught here too: with CallerRunsPolicy this may be the submitting thread
+                        failed.incrementAndGet();
+                        System.err.println("seed " + seed + ": " + e);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        closeIndex(index);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(
+            "Generated %d %s mazes (%d failed, %d duplicates skipped) of size %d in %.2fs: %.1f mazes/s on %d threads%n",
+            written.get(), opts.algorithm.getName(), failed.get(), duplicates.get(), opts.size, seconds,
+            written.get() / seconds, opts.threads
+        );
+    }
+
+    // ------------------------------------------------
+    // search: best-of-N candidates on a fork-join pool, top k written out
+    // ------------------------------------------------
+    static void search(Options opts) throws IOException {
+        if (opts.count > Integer.MAX_VALUE) throw new IllegalArgumentException("--count too large for search");
+        File outDir = new File(outDir(opts));
+        createDirectory(outDir);
+        MazeIndex index = openIndex(opts, outDir);
+
+        CandidateSearch search = new CandidateSearch(opts.size, opts.size,
+            new FairPlacement(opts.players, opts.forms, opts.tolerance), opts.algorithm, opts.symmetric);
+        ForkJoinPool pool = new ForkJoinPool(opts.threads);
+        CandidateSearch.Result result;
+        try {
+            result = search.search(opts.seed, (int) opts.count, opts.top, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        AtomicInteger duplicates = new AtomicInteger();
+        System.out.println("  seed        score  spread  dead-ends  overlap");
+        for (CandidateSearch.Candidate c : result.best) {
+            String id = "maze-" + c.seed;
+            MazeModel model = new MazeModel(opts.size);
+            model.setCells(opts.size, opts.size, c.cells);
+            Path target = new File(outDir, id + ".json").toPath();
+            exportUnique(index, MazeHash.canonical(model), id, target, duplicates,
+                () -> MazeCodec.writeJson(model, id, id, target));
+            System.out.printf("%6d  %11.4f  %6.3f  %9.3f  %7.3f%n",
+                c.seed, c.score, c.spread, c.deadEndRatio, c.overlap);
+        }
+        closeIndex(index);
+
+        double seconds = result.nanos / 1e9;
+        System.out.printf(
+            "Scored %d candidates (%d failed, %d cut early) in %.2fs: %.1f candidates/s on %d threads%n",
+            result.evaluated, result.failed, result.cutEarly, seconds, result.evaluated / seconds, opts.threads
+        );
+    }
+
+    // ------------------------------------------------
+    // simulate: bot playthroughs per maze, as one JSON object
+    // ------------------------------------------------
+    static void simulate(Options opts) throws IOException, InterruptedException {
+        File in = new File(opts.in);
+        File[] files = in.isFile() ? new File[] {in} : listMazes(opts.in);
+        BotSimulator.Policy[] policies = Arrays.stream(opts.policies.split(","))
+            .map(String::trim)
+            .map(BotSimulator.Policy::byName)
+            .toArray(BotSimulator.Policy[]::new);
+        Map<String, Object> results = new LinkedHashMap<>();
+
+        long start = System.nanoTime();
+        for (File file : files) {
+            try {
+                MazeLoader.Loaded maze = MazeLoader.load(file);
+                BotSimulator simulator = new BotSimulator(maze.cells, maze.width, maze.height, opts.maxTurns);
+                results.put(file.getName(), simulator.run(opts.runs, policies, opts.seed));
+            } catch (IOException | RuntimeException e) {
+                results.put(file.getName(), Map.of("error", String.valueOf(e.getMessage())));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(results);
+        if (opts.out == null) {
+            System.out.println(json);
+        } else {
+            Files.writeString(Path.of(opts.out), json + "\n", StandardCharsets.UTF_8);
+        }
+        System.err.printf("Simulated %d games on each of %d mazes in %.2fs%n", opts.runs, files.length, seconds);
+    }
+
+    // ------------------------------------------------
+    // solve: optimal moves and paths per player, pushing sheets, as one JSON object
+    // ------------------------------------------------
+    static void solve(Options opts) throws IOException {
+        File in = new File(opts.in);
+        File[] files = in.isFile() ? new File[] {in} : listMazes(opts.in);
+        Map<String, Object> results = new LinkedHashMap<>();
+
+        long start = System.nanoTime();
+        for (File file : files) {
+            try {
+                MazeLoader.Loaded maze = MazeLoader.load(file);
+                MazeSolver solver = new MazeSolver(maze.cells, maze.width, maze.height, opts.budget << 20);
+                results.put(file.getName(), solver.solveAll());
+            } catch (IOException | RuntimeException e) {
+                results.put(file.getName(), Map.of("error", String.valueOf(e.getMessage())));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(results);
+        if (opts.out == null) {
+            System.out.println(json);
+        } else {
+            Files.writeString(Path.of(opts.out), json + "\n", StandardCharsets.UTF_8);
+        }
+        System.err.printf("Solved %d mazes in %.2fs%n", files.length, seconds);
+    }
+
+    // ------------------------------------------------
+    // Duplicate index shared by generate and convert
+    // ------------------------------------------------
+    interface Export {
+        void write() throws IOException;
+    }
+
+    /** The index named by --index, or the default one in outDir; null with --index none. */
+    private static MazeIndex openIndex(Options opts, File outDir) throws IOException {
+        if ("none".equals(opts.index)) return null;
+        Path path = opts.index != null ? Path.of(opts.index) : new File(outDir, MazeIndex.DEFAULT_NAME).toPath();
+        MazeIndex index = new MazeIndex(path);
+        System.err.printf("Duplicate index %s: %d mazes%n", path, index.size());
+        return index;
+    }
+
+    private static void closeIndex(MazeIndex index) throws IOException {
+        if (index != null) index.close();
+    }
+
+    /**
+     * Runs export unless a maze with the same canonical hash is already in
+     * the index. Returns false, and counts a duplicate, if it was skipped.
+     * A maze indexed under its own id by an earlier run is not a duplicate:
+     * it is left alone, or written again if its file has gone missing.
+     */
+    private static boolean exportUnique(MazeIndex index, long hash, String id, Path target,
+                                        AtomicInteger duplicates, Export export) throws IOException {
+        if (index == null) {
+            export.write();
+            return true;
+        }
+        String existing = index.claim(hash, id);
+        if (id.equals(existing)) {
+            if (Files.exists(target)) return false;
+            export.write();
+            return true;
+        }
+        if (existing != null) {
+            duplicates.incrementAndGet();
+            Metrics.count("export.duplicates", 1);
+            System.err.println(id + ": duplicate of " + existing);
+            return false;
+        }
+        try {
+            export.write();
+        } catch (IOException | RuntimeException e) {
+            index.release(hash, id);
+            throw e;
+        }
+        index.commit(hash, id);
+        return true;
+    }
+
+    // ------------------------------------------------
+    // stream: one Eller maze written row by row, O(width) memory
+    // ------------------------------------------------
+    static void stream(Options opts) throws IOException {
+        int w = opts.width > 0 ? opts.width : opts.size;
+        int h = opts.height > 0 ? opts.height : opts.size;
+        String id = "maze-" + opts.seed;
+        File file = opts.out == null ? new File(id + ".json") : new File(opts.out);
+
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            EllerAlgorithm.stream(out, id, id, w, h, opts.seed);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(
+            "Streamed %dx%d maze to %s in %.2fs (%.1f Mcells/s)%n",
+            w, h, file, seconds, (double) w * h / seconds / 1e6
+        );
+    }
+
+    // ------------------------------------------------
+    // stress: a tiled map far larger than the heap model, bounded memory
+    // ------------------------------------------------
+    static void stress(Options opts) throws IOException {
+        int w = opts.width > 0 ? opts.width : opts.size;
+        int h = opts.height > 0 ? opts.height : opts.size;
+        Path file = Path.of(opts.out == null ? "stress-" + opts.seed + TiledMazeStore.EXTENSION : opts.out);
+
+        long start = System.nanoTime();
+        long floor;
+        try (TiledMazeStore store = TiledMazeStore.create(file, w, h, opts.cache << 20)) {
+            try {
+                floor = store.generate(opts.seed, Progress.NONE);
+            } catch (IOException | RuntimeException e) {
+                store.discard(); // no half-carved map left behind
+                throw e;
+            }
+            double genSeconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(
+                "Generated %dx%d tiled maze to %s in %.2fs (%.1f Mcells/s), %d floor cells%n",
+                w, h, file, genSeconds, (double) w * h / genSeconds / 1e6, floor
+            );
+
+            // Random reads all over the map, as a viewer jumping around or a
+            // search would touch it: every miss loads a tile and evicts one
+            long readStart = System.nanoTime();
+            SplittableRandom rng = new SplittableRandom(opts.seed);
+            int reads = 1_000_000;
+            long walls = 0;
+            for (int i = 0; i < reads; i++) {
+                if (MazeModel.isWall(store.get(rng.nextInt(w), rng.nextInt(h)))) walls++;
+            }
+            double readSeconds = (System.nanoTime() - readStart) / 1e9;
+            Runtime rt = Runtime.getRuntime();
+            System.out.printf(
+                "%d random reads in %.2fs (%.1f%% wall); %d tile loads, %d evictions, %d write-backs%n",
+                reads, readSeconds, 100.0 * walls / reads, store.loads(), store.evictions(), store.writes()
+            );
+            System.out.printf(
+                "Tile cache %.1f of %.1f MB off-heap; heap in use %.1f MB%n",
+                store.residentBytes() / 1048576.0, store.capacityBytes() / 1048576.0,
+                (rt.totalMemory() - rt.freeMemory()) / 1048576.0
+            );
+        }
+    }
+
+    // ------------------------------------------------
+    // validate: every *.json in a directory, in parallel
+    // ------------------------------------------------
+    /** Returns the exit status: 1 if any maze is invalid. */
+    static int validate(Options opts) throws InterruptedException, IOException {
+        File[] files = listMazes(opts.in);
+
+        ThreadLocal<MazeValidator> validators = ThreadLocal.withInitial(MazeValidator::new);
+        String[] output = new String[files.length];
+        AtomicInteger invalid = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(opts.threads);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < files.length; i++) {
+            int index = i;
+            pool.execute(() -> {
+                File file = files[index];
+                StringBuilder sb = new StringBuilder();
+                try {
+                    MazeModel model = new MazeModel(0);
+                    MazeLoader.load(file).applyTo(model);
+                    MazeValidator.Report report = validators.get().validate(model);
+                    if (!report.isValid()) invalid.incrementAndGet();
+                    for (MazeValidator.Issue issue : report.issues) {
+                        sb.append(file.getName()).append(": ").append(issue).append('\n');
+                    }
+                } catch (IOException | RuntimeException e) {
+                    invalid.incrementAndGet();
+                    sb.append(file.getName()).append(": ERROR ").append(e.getMessage()).append('\n');
+                }
+                output[index] = sb.toString();
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (String s : output) System.out.print(s);
+        System.out.printf(
+            "Validated %d mazes in %.2fs: %d invalid%n",
+            files.length, seconds, invalid.get()
+        );
+        return invalid.get() > 0 ? 1 : 0;
+    }
+
+    // ------------------------------------------------
+    // convert: between JSON and the binary .mazeb format
+    // ------------------------------------------------
+    static void convert(Options opts) throws InterruptedException, IOException {
+        File[] files = listMazes(opts.in);
+        File outDir = new File(outDir(opts));
+        createDirectory(outDir);
+        MazeIndex index = openIndex(opts, outDir);
+        boolean toBinary = !opts.to.equals("json");
+        String extension = toBinary ? MazeBinary.EXTENSION : ".json";
+
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(opts.threads);
+        long start = System.nanoTime();
+        for (File file : files) {
+            pool.execute(() -> {
+                String base = file.getName().substring(0, file.getName().lastIndexOf('.'));
+                File target = new File(outDir, base + extension);
+                try {
+                    MazeLoader.Loaded maze = MazeLoader.load(file);
+                    exportUnique(index, MazeHash.canonical(maze), base, target.toPath(), duplicates, () -> {
+                        if (toBinary) MazeBinary.write(maze, target.toPath());
+                        else MazeCodec.writeJson(maze, target.toPath());
+                    });
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                    System.err.println(file.getName() + ": " + e.getMessage());
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        closeIndex(index);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(
+            "Converted %d mazes to %s in %.2fs (%d failed, %d duplicates skipped)%n",
+            files.length - failed.get() - duplicates.get(), extension, seconds, failed.get(), duplicates.get()
+        );
+    }
+
+    // ------------------------------------------------
+    // analyze: per-player statistics for every maze, as one JSON object
+    // ------------------------------------------------
+    static void analyze(Options opts) throws IOException {
+        File[] files = listMazes(opts.in);
+        MazeAnalyzer analyzer = new MazeAnalyzer();
+        Map<String, Object> results = new LinkedHashMap<>();
+
+        long start = System.nanoTime();
+        for (File file : files) {
+            try {
+                results.put(file.getName(), analyzer.analyze(MazeLoader.load(file)));
+            } catch (IOException | RuntimeException e) {
+                results.put(file.getName(), Map.of("error", String.valueOf(e.getMessage())));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(results);
+        if (opts.out == null) {
+            System.out.println(json);
+        } else {
+            Files.writeString(Path.of(opts.out), json + "\n", StandardCharsets.UTF_8);
+        }
+        System.err.printf("Analyzed %d mazes in %.2fs%n", files.length, seconds);
+    }
+
+    private static void createDirectory(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create output directory " + dir);
+    }
+
+    private static File[] listMazes(String dir) throws IOException {
+        File[] files = new File(dir).listFiles(
+            (d, name) -> name.endsWith(".json") || name.endsWith(MazeBinary.EXTENSION)
+        );
+        if (files == null) throw new IOException("Cannot read directory " + dir);
+        Arrays.sort(files);
+        return files;
+    }
+
+    // ------------------------------------------------
+    // Argument parsing
+    // ------------------------------------------------
+    static class Options {
+        long count = 100;
+        int size = 51;
+        int width;
+        int height;
+        int players = 4;
+        int forms = FairPlacement.DEFAULT_FORMS;
+        double tolerance = FairPlacement.DEFAULT_TOLERANCE;
+        long seed = 1;
+        MazeAlgorithm algorithm = MazeAlgorithm.BACKTRACKER;
+        boolean symmetric;
+        String out;
+        String in = ".";
+        String to = "mazeb";
+        String metrics;
+        String jfr;
+        String index;
+        int top = 5;
+        int runs = 1000;
+        String policies = "greedy";
+        int maxTurns;
+        long budget = MazeSolver.DEFAULT_MEMORY_BUDGET >> 20;
+        long cache = TiledMazeStore.DEFAULT_CACHE_BYTES >> 20;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            int i = args.length > 0 && !args[0].startsWith("--") ? 1 : 0;
+            try {
+                for (; i < args.length; i++) {
+                    String key = args[i];
+                    if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + key);
+                    String value = args[++i];
+                    switch (key) {
+                        case "--count" -> o.count = Long.parseLong(value);
+                        case "--size" -> o.size = Integer.parseInt(value);
+                        case "--width" -> o.width = Integer.parseInt(value);
+                        case "--height" -> o.height = Integer.parseInt(value);
+                        case "--players" -> o.players = Integer.parseInt(value);
+                        case "--forms" -> o.forms = Integer.parseInt(value);
+                        case "--tolerance" -> o.tolerance = Double.parseDouble(value);
+                        case "--seed" -> o.seed = Long.parseLong(value);
+                        case "--seeds" -> {
+                            String[] range = value.split(":");
+                            o.seed = Long.parseLong(range[0]);
+                            o.count = Long.parseLong(range[1]) - o.seed + 1;
+                        }
+                        case "--algorithm" -> o.algorithm = MazeAlgorithm.byName(value);
+                        case "--layout" -> {
+                            if (!value.equals("fair") && !value.equals("symmetric")) {
+                                throw new IllegalArgumentException("--layout must be fair or symmetric");
+                            }
+                            o.symmetric = value.equals("symmetric");
+                        }
+                        case "--out" -> o.out = value;
+                        case "--in" -> o.in = value;
+                        case "--to" -> o.to = value;
+                        case "--threads" -> o.threads = Integer.parseInt(value);
+                        case "--metrics" -> o.metrics = value;
+                        case "--jfr" -> o.jfr = value;
+                        case "--index" -> o.index = value;
+                        case "--top" -> o.top = Integer.parseInt(value);
+                        case "--runs" -> o.runs = Integer.parseInt(value);
+                        case "--policy" -> o.policies = value;
+                        case "--max-turns" -> o.maxTurns = Integer.parseInt(value);
+                        case "--budget" -> o.budget = Long.parseLong(value);
+                        case "--cache" -> o.cache = Long.parseLong(value);
+                        default -> throw new IllegalArgumentException("Unknown option " + key);
+                    }
+                }
+                if (o.size < 5) throw new IllegalArgumentException("--size must be at least 5");
+                if (o.players < 1 || o.players > MazeModel.MAX_PLAYERS) {
+                    throw new IllegalArgumentException("--players must be 1-" + MazeModel.MAX_PLAYERS);
+                }
+                if (o.symmetric && !SymmetricGenerator.supports(o.players)) {
+                    throw new IllegalArgumentException("--layout symmetric needs --players 2 or 4");
+                }
+                if (o.forms < 0 || o.forms > 26) throw new IllegalArgumentException("--forms must be 0-26");
+                if (o.count < 0 || o.threads < 1) throw new IllegalArgumentException("--count and --threads must be positive");
+                if (o.top < 1) throw new IllegalArgumentException("--top must be positive");
+                if (o.budget < 1) throw new IllegalArgumentException("--budget must be at least 1 MB");
+                if (o.cache < 1) throw new IllegalArgumentException("--cache must be at least 1 MB");
+                if (o.runs < 1 || o.maxTurns < 0) throw new IllegalArgumentException("--runs and --max-turns must be positive");
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new UsageException(e.getMessage());
+            }
+            return o;
+        }
+    }
+}
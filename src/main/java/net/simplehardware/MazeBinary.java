@@ -0,0 +1,250 @@
+package net.simplehardware;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary maze format (.mazeb), read and written through memory-mapped
+ * files. Cells are stored exactly as {@link MazeModel} packs them: one byte
+ * each, 5 bits type and 3 bits owner.
+ *
+ * <pre>
+ * magic     "MAZB"
+ * version   u16 (1)
+ * reserved  u16
+ * width     u32
+ * height    u32
+ * id        u16 length (0xFFFF = null) + UTF-8 bytes
+ * name      u16 length (0xFFFF = null) + UTF-8 bytes
+ * forms     u16 count, then per form: u16 id char, u16 name length + UTF-8 bytes
+ * cells     width * height bytes, row-major
+ * </pre>
+ *
+ * All integers are little-endian.
+ */
+public class MazeBinary {
+
+    public static final String EXTENSION = ".mazeb";
+
+    private static final int MAGIC = 0x42_5A_41_4D; // "MAZB" read little-endian
+    private static final short VERSION = 1;
+    private static final int NULL_STRING = 0xFFFF;
+
+    // Every byte MazeModel.pack can produce
+    private static final boolean[] VALID_CELL = new boolean[256];
+
+    static {
+        for (Mode mode : Mode.values()) {
+            if (!mode.hasOwner()) {
+                VALID_CELL[mode.ordinal()] = true;
+                continue;
+            }
+            for (int pid = 1; pid <= MazeModel.MAX_PLAYERS; pid++) VALID_CELL[MazeModel.pack(mode, pid) & 0xFF] = true;
+        }
+    }
+
+    /** A mapped file whose cells are read in place, without copying. */
+    public static class Mapped {
+        public final String id;
+        public final String name;
+        public final List<FormInfo> forms;
+        public final int width;
+        public final int height;
+        private final ByteBuffer cells;
+
+        Mapped(String id, String name, List<FormInfo> forms, int width, int height, ByteBuffer cells) {
+            this.id = id;
+            this.name = name;
+            this.forms = forms;
+            this.width = width;
+            this.height = height;
+            this.cells = cells;
+        }
+
+        public byte get(int x, int y) {
+            return cells.get(y * width + x);
+        }
+
+        /** Read-only view of the mapped cell bytes. */
+        public ByteBuffer cells() {
+            return cells.duplicate();
+        }
+
+        /** Copies the cells out into a {@link MazeLoader.Loaded}. */
+        public MazeLoader.Loaded toLoaded() {
+            return toLoaded(Progress.NONE);
+        }
+
+        /** As {@link #toLoaded()}, copying and reporting 64 rows at a time. */
+        public MazeLoader.Loaded toLoaded(Progress progress) {
+            MazeLoader.Loaded loaded = new MazeLoader.Loaded();
+            loaded.id = id;
+            loaded.name = name;
+            loaded.forms = new ArrayList<>(forms);
+            loaded.width = width;
+            loaded.height = height;
+            loaded.cells = new byte[width * height];
+            ByteBuffer src = cells.duplicate();
+            for (int y = 0; y < height; y += 64) {
+                progress.update("Reading rows", (double) y / height);
+                int rows = Math.min(64, height - y);
+                src.get(loaded.cells, y * width, rows * width);
+            }
+            return loaded;
+        }
+    }
+
+    public static boolean isBinary(File file) {
+        return file.getName().endsWith(EXTENSION);
+    }
+
+    public static Mapped map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                if (buf.getInt() != MAGIC) throw new IOException(path + " is not a .mazeb file");
+                short version = buf.getShort();
+                if (version != VERSION) throw new IOException("Unsupported .mazeb version " + version);
+                buf.getShort();
+                int width = buf.getInt();
+                int height = buf.getInt();
+                String id = getString(buf);
+                String name = getString(buf);
+                int formCount = Short.toUnsignedInt(buf.getShort());
+                List<FormInfo> forms = new ArrayList<>(formCount);
+                for (int i = 0; i < formCount; i++) {
+                    char formId = buf.getChar();
+                    forms.add(new FormInfo(formId, getString(buf)));
+                }
+                long cellCount = (long) width * height;
+                if (width < 0 || height < 0 || cellCount != buf.remaining()) {
+                    throw new IOException(path + ": expected " + cellCount + " cell bytes, found " + buf.remaining());
+                }
+                ByteBuffer cells = buf.slice().asReadOnlyBuffer();
+                checkCells(cells, width);
+                return new Mapped(id, name, forms, width, height, cells);
+            } catch (BufferUnderflowException e) {
+                throw new IOException(path + ": truncated header", e);
+            }
+        }
+    }
+
+    /**
+     * Rejects bytes that are not packed cells: type ordinals past the last
+     * {@link Mode}, and owner bits on floor or wall, which would break every
+     * comparison against {@link MazeModel#FLOOR} and {@link MazeModel#WALL}.
+     */
+    private static void checkCells(ByteBuffer cells, int width) throws IOException {
+        for (int i = 0, n = cells.limit(); i < n; i++) {
+            byte c = cells.get(i);
+            if (!VALID_CELL[c & 0xFF]) {
+                int t = c & 0x1F;
+                String problem = t >= Mode.values().length
+                    ? "unknown cell type " + t
+                    : "owner bits set on " + Mode.values()[t];
+                throw new MazeLoader.MazeFormatException(i / width, i % width, problem);
+            }
+        }
+    }
+
+    public static MazeLoader.Loaded read(File file) throws IOException {
+        return read(file, Progress.NONE);
+    }
+
+    public static MazeLoader.Loaded read(File file, Progress progress) throws IOException {
+        return map(file.toPath()).toLoaded(progress);
+    }
+
+    public static void write(MazeModel model, String id, String name, Path path) throws IOException {
+        List<FormInfo> forms = MazeCodec.formsOf(MazeCodec.formMask(model.cells()));
+        write(model.cells(), model.getWidth(), model.getHeight(), id, name, forms, path);
+    }
+
+    public static void write(MazeLoader.Loaded maze, Path path) throws IOException {
+        write(maze.cells, maze.width, maze.height, maze.id, maze.name, maze.forms, path);
+    }
+
+    public static void write(byte[] cells, int w, int h, String id, String name,
+                             List<FormInfo> forms, Path path) throws IOException {
+        write(cells, w, h, id, name, forms, path, Progress.NONE);
+    }
+
+    /** As above, writing and reporting 64 rows at a time. */
+    public static void write(byte[] cells, int w, int h, String id, String name,
+                             List<FormInfo> forms, Path path, Progress progress) throws IOException {
+        MazeEvents.Export event = new MazeEvents.Export();
+        event.begin();
+        long start = System.nanoTime();
+        byte[] idBytes = id == null ? null : id.getBytes(StandardCharsets.UTF_8);
+        byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        byte[][] formNames = new byte[forms.size()][];
+        long size = 4 + 2 + 2 + 4 + 4 + stringSize(idBytes) + stringSize(nameBytes) + 2;
+        for (int i = 0; i < formNames.length; i++) {
+            String formName = forms.get(i).name;
+            formNames[i] = formName == null ? null : formName.getBytes(StandardCharsets.UTF_8);
+            size += 2 + stringSize(formNames[i]);
+        }
+        size += (long) w * h;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC);
+            buf.putShort(VERSION);
+            buf.putShort((short) 0);
+            buf.putInt(w);
+            buf.putInt(h);
+            putString(buf, idBytes);
+            putString(buf, nameBytes);
+            buf.putShort((short) forms.size());
+            for (int i = 0; i < formNames.length; i++) {
+                buf.putChar(forms.get(i).id);
+                putString(buf, formNames[i]);
+            }
+            for (int y = 0; y < h; y += 64) {
+                progress.update("Writing rows", (double) y / h);
+                int rows = Math.min(64, h - y);
+                buf.put(cells, y * w, rows * w);
+            }
+            progress.update("Writing rows", 1);
+        }
+        MazeCodec.recordExport(event, start, path, "mazeb", size, (long) w * h);
+    }
+
+    private static long stringSize(byte[] bytes) {
+        if (bytes != null && bytes.length >= NULL_STRING) {
+            throw new IllegalArgumentException("String too long for .mazeb header");
+        }
+        return 2 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer buf, byte[] bytes) {
+        if (bytes == null) {
+            buf.putShort((short) NULL_STRING);
+            return;
+        }
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int len = Short.toUnsignedInt(buf.getShort());
+        if (len == NULL_STRING) return null;
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,231 @@
+package net.simplehardware;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.*;
+
+/**
+ * Single component that paints the whole maze. Only the cells intersecting the
+ * current clip are drawn, so painting and zooming cost O(visible cells) rather
+ * than one Swing component per cell.
+ */
+public class MazeCanvas extends JComponent {
+
+    private static final Color WALL_COLOR = new Color(120, 20, 20);
+    private static final Color SHEET_COLOR = new Color(255, 215, 0);
+    private static final Color[] PLAYER_COLORS = new Color[MazeModel.MAX_PLAYERS + 1];
+    private static final String[][] GLYPHS = new String[Mode.values().length][MazeModel.MAX_PLAYERS + 1];
+
+    static {
+        for (int pid = 0; pid <= MazeModel.MAX_PLAYERS; pid++) {
+            float hue = (pid - 1) * 0.125f;
+            PLAYER_COLORS[pid] = Color.getHSBColor(hue, 0.7f, 0.9f);
+        }
+        for (Mode mode : Mode.values()) {
+            String prefix = switch (mode) {
+                case START -> "@";
+                case FINISH -> "!";
+                case SHEET -> "S";
+                default -> mode.isForm() ? mode.name().substring(5) : null;
+            };
+            if (prefix == null) continue;
+            for (int pid = 0; pid <= MazeModel.MAX_PLAYERS; pid++) {
+                GLYPHS[mode.ordinal()][pid] = prefix + pid;
+            }
+        }
+    }
+
+    // Cyclic, so a cell's colour depends only on its own distance and an
+    // incremental repair only has to repaint the cells that changed
+    private static final int HEAT_PERIOD = 32;
+    private static final Color[] HEAT = new Color[HEAT_PERIOD];
+
+    static {
+        for (int i = 0; i < HEAT_PERIOD; i++) {
+            Color c = Color.getHSBColor((float) i / HEAT_PERIOD, 0.8f, 1f);
+            HEAT[i] = new Color(c.getRed(), c.getGreen(), c.getBlue(), 120);
+        }
+    }
+
+    private final MazeModel model;
+    private final UndoHistory history;
+    private final MazeEditor editor;
+    private int cellSize;
+    private DistanceOverlay overlay;
+
+    public MazeCanvas(MazeModel model, UndoHistory history, MazeEditor editor, int cellSize) {
+        this.model = model;
+        this.history = history;
+        this.editor = editor;
+        this.cellSize = cellSize;
+        setOpaque(true);
+        updatePreferredSize();
+
+        // Click and drag
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (SwingUtilities.isLeftMouseButton(e)) {
+                    // Everything painted until release is one undo step
+                    history.beginStroke();
+                    applyCurrentMode(e.getPoint(), false);
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (SwingUtilities.isLeftMouseButton(e)) {
+                    history.endStroke();
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if ((e.getModifiersEx() & MouseEvent.BUTTON1_DOWN_MASK) != 0) {
+                    applyCurrentMode(e.getPoint(), true);
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    private void applyCurrentMode(Point p, boolean dragging) {
+        int x = p.x / cellSize;
+        int y = p.y / cellSize;
+        if (p.x < 0 || p.y < 0 || !model.inBounds(x, y)) return;
+        Mode current = editor.getCurrentMode();
+        // Dragging only paints structure, like the old per-cell mouseEntered
+        if (dragging && current != Mode.WALL && current != Mode.FLOOR) return;
+        int pid = current.hasOwner() ? editor.getCurrentPlayerId() : 0;
+        model.set(x, y, current, pid);
+    }
+
+    /** Heat map drawn over the cells while the overlay is enabled. */
+    public void setOverlay(DistanceOverlay overlay) {
+        this.overlay = overlay;
+        repaint();
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public void setCellSize(int cellSize) {
+        this.cellSize = cellSize;
+        updatePreferredSize();
+        revalidate();
+        repaint();
+    }
+
+    void updatePreferredSize() {
+        setPreferredSize(new Dimension(model.getWidth() * cellSize, model.getHeight() * cellSize));
+    }
+
+    /** Repaints only the pixels covering the given cell range. */
+    public void repaintCells(int minX, int minY, int maxX, int maxY) {
+        repaint(minX * cellSize, minY * cellSize,
+                (maxX - minX + 1) * cellSize, (maxY - minY + 1) * cellSize);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        MazeEvents.Paint event = new MazeEvents.Paint();
+        event.begin();
+        long start = System.nanoTime();
+        int painted = paintCells((Graphics2D) g, model, cellSize, clip);
+        if (overlay != null && overlay.isEnabled()) {
+            paintDistances((Graphics2D) g, model, overlay, cellSize, clip);
+        }
+
+        Metrics.timer("paint").record(System.nanoTime() - start);
+        Metrics.count("paint.cells", painted);
+        event.end();
+        if (event.shouldCommit()) {
+            event.cells = painted;
+            event.cellSize = cellSize;
+            event.clipWidth = clip.width;
+            event.clipHeight = clip.height;
+            event.commit();
+        }
+    }
+
+    /**
+     * Paints the cells of the model that intersect clip and returns how many
+     * were painted. Usable on any Graphics2D, including offscreen images.
+     */
+    public static int paintCells(Graphics2D g, MazeModel model, int cellSize, Rectangle clip) {
+        int minX = Math.max(0, clip.x / cellSize);
+        int minY = Math.max(0, clip.y / cellSize);
+        int maxX = Math.min(model.getWidth() - 1, (clip.x + clip.width - 1) / cellSize);
+        int maxY = Math.min(model.getHeight() - 1, (clip.y + clip.height - 1) / cellSize);
+
+        g.setFont(g.getFont().deriveFont(Font.BOLD, 14f));
+        FontMetrics fm = g.getFontMetrics();
+        boolean drawText = cellSize >= fm.getAscent();
+
+        for (int y = minY; y <= maxY; y++) {
+            int py = y * cellSize;
+            for (int x = minX; x <= maxX; x++) {
+                int px = x * cellSize;
+                byte cell = model.get(x, y);
+                Mode mode = MazeModel.modeOf(cell);
+                int pid = MazeModel.playerOf(cell);
+
+                g.setColor(colorOf(mode, pid));
+                g.fillRect(px, py, cellSize, cellSize);
+                g.setColor(Color.GRAY);
+                g.drawRect(px, py, cellSize - 1, cellSize - 1);
+
+                String text = GLYPHS[mode.ordinal()][pid];
+                if (text != null && drawText) {
+                    g.setColor(Color.BLACK);
+                    int tx = px + (cellSize - fm.stringWidth(text)) / 2;
+                    int ty = py + (cellSize + fm.getAscent()) / 2 - 4;
+                    g.drawString(text, tx, ty);
+                }
+            }
+        }
+        return Math.max(0, maxX - minX + 1) * Math.max(0, maxY - minY + 1);
+    }
+
+    /** Tints every reachable cell in clip by its distance from the overlay's START. */
+    public static void paintDistances(Graphics2D g, MazeModel model, DistanceOverlay overlay,
+                                      int cellSize, Rectangle clip) {
+        int minX = Math.max(0, clip.x / cellSize);
+        int minY = Math.max(0, clip.y / cellSize);
+        int maxX = Math.min(model.getWidth() - 1, (clip.x + clip.width - 1) / cellSize);
+        int maxY = Math.min(model.getHeight() - 1, (clip.y + clip.height - 1) / cellSize);
+
+        g.setFont(g.getFont().deriveFont(Font.PLAIN, 10f));
+        FontMetrics fm = g.getFontMetrics();
+        boolean drawText = cellSize >= 28;
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                int i = model.index(x, y);
+                int d = overlay.get(i);
+                if (d == DistanceField.UNREACHABLE) continue;
+                g.setColor(HEAT[d % HEAT_PERIOD]);
+                g.fillRect(x * cellSize, y * cellSize, cellSize, cellSize);
+                if (drawText && GLYPHS[MazeModel.modeOf(model.cells()[i]).ordinal()][0] == null) {
+                    g.setColor(Color.DARK_GRAY);
+                    g.drawString(Integer.toString(d), x * cellSize + 3, y * cellSize + fm.getAscent() + 2);
+                }
+            }
+        }
+    }
+
+    static Color colorOf(Mode mode, int pid) {
+        return switch (mode) {
+            case FLOOR -> Color.LIGHT_GRAY;
+            case WALL -> WALL_COLOR;
+            case START -> Color.CYAN;
+            case FINISH -> Color.PINK;
+            case SHEET -> SHEET_COLOR;
+            default -> PLAYER_COLORS[pid];
+        };
+    }
+}
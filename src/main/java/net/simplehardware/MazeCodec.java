@@ -0,0 +1,227 @@
+package net.simplehardware;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The game-engine cell encoding in one place. Each cell is two characters:
+ * the type ('#', ' ', '@', '!', 'S', 'A'-'Z' with '$' for form S) and the
+ * owner digit, or the type repeated for floor and wall.
+ */
+public class MazeCodec {
+
+    private static final Mode[] MODES = Mode.values();
+
+    // Cell type by character, -1 for characters the game engine does not use
+    private static final byte[] TYPE_BY_CHAR = new byte[128];
+    private static final byte[] CHAR_BY_TYPE = new byte[MODES.length];
+
+    static {
+        Arrays.fill(TYPE_BY_CHAR, (byte) -1);
+        for (Mode mode : MODES) {
+            char c = switch (mode) {
+                case FLOOR -> ' ';
+                case WALL -> '#';
+                case START -> '@';
+                case FINISH -> '!';
+                case SHEET -> 'S';
+                // 'S' is the sheet, so form S is written as '$'
+                case FORM_S -> '$';
+                default -> (char) ('A' + mode.ordinal() - Mode.FORM_A.ordinal());
+            };
+            CHAR_BY_TYPE[mode.ordinal()] = (byte) c;
+            TYPE_BY_CHAR[c] = (byte) mode.ordinal();
+        }
+    }
+
+    // Default settings, as in the original exporter: HTML-safe escaping of < > & = '
+    private static final Gson GSON = new Gson();
+
+    private static final byte[] FOOTER = "\"\n}".getBytes(StandardCharsets.US_ASCII);
+
+    /** Mode for a type character, or null if the character is not a cell type. */
+    public static Mode modeOf(char c) {
+        int t = c < 128 ? TYPE_BY_CHAR[c] : -1;
+        return t < 0 ? null : MODES[t];
+    }
+
+    public static char charOf(Mode mode) {
+        return (char) CHAR_BY_TYPE[mode.ordinal()];
+    }
+
+    /**
+     * Packed cell for a two-character code, -1 if the type is unknown, or -2
+     * if an owned type has an owner other than '1'-'8'.
+     */
+    public static int decodeCell(char type, char owner) {
+        int t = type < 128 ? TYPE_BY_CHAR[type] : -1;
+        if (t < 0) return -1;
+        Mode mode = MODES[t];
+        if (!mode.hasOwner()) return t;
+        int pid = owner - '0';
+        if (pid < 1 || pid > MazeModel.MAX_PLAYERS) return -2;
+        return MazeModel.pack(mode, pid) & 0xFF;
+    }
+
+    /** Writes the two characters for cell at out[pos] and out[pos + 1]. */
+    public static void encodeCell(byte cell, byte[] out, int pos) {
+        Mode mode = MazeModel.modeOf(cell);
+        byte c = CHAR_BY_TYPE[mode.ordinal()];
+        out[pos] = c;
+        out[pos + 1] = mode.hasOwner() ? (byte) ('0' + MazeModel.playerOf(cell)) : c;
+    }
+
+    /** Bit f is set when form 'A' + f occurs anywhere in the cells. */
+    public static int formMask(byte[] cells) {
+        int mask = 0;
+        for (byte c : cells) {
+            int t = c & 0x1F;
+            if (t >= Mode.FORM_A.ordinal() && t <= Mode.FORM_Z.ordinal()) {
+                mask |= 1 << (t - Mode.FORM_A.ordinal());
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * JSON up to the opening quote of the maze string, in the same layout as
+     * Gson's pretty printer. Forms are listed in alphabetical order.
+     */
+    public static byte[] header(String id, String name, int formMask) {
+        return header(id, name, formsOf(formMask));
+    }
+
+    /** Forms list for a mask, named "Form A", "Form B"... in alphabetical order. */
+    public static List<FormInfo> formsOf(int formMask) {
+        List<FormInfo> forms = new ArrayList<>();
+        for (int f = 0; f < 26; f++) {
+            if ((formMask & (1 << f)) == 0) continue;
+            char letter = (char) ('A' + f);
+            forms.add(new FormInfo(letter, "Form " + letter));
+        }
+        return forms;
+    }
+
+    /** Header with an explicit forms list, kept in the given order. */
+    public static byte[] header(String id, String name, List<FormInfo> forms) {
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"id\": ").append(quote(id)).append(",\n");
+        sb.append("  \"name\": ").append(quote(name)).append(",\n");
+        if (forms.isEmpty()) {
+            sb.append("  \"forms\": [],\n");
+        } else {
+            sb.append("  \"forms\": [");
+            String sep = "\n";
+            for (FormInfo form : forms) {
+                sb.append(sep)
+                    .append("    {\n")
+                    .append("      \"id\": ").append(quote(String.valueOf(form.id))).append(",\n")
+                    .append("      \"name\": ").append(quote(form.name)).append("\n")
+                    .append("    }");
+                sep = ",\n";
+            }
+            sb.append("\n  ],\n");
+        }
+        sb.append("  \"maze\": \"");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String s) {
+        return GSON.toJson(s);
+    }
+
+    public static byte[] footer() {
+        return FOOTER.clone();
+    }
+
+    public static void writeJson(MazeModel model, String id, String name, Path path) throws IOException {
+        writeJson(model.cells(), model.getWidth(), model.getHeight(),
+                header(id, name, formMask(model.cells())), path, Progress.NONE);
+    }
+
+    /** Writes a loaded maze back out with its original id, name and forms list. */
+    public static void writeJson(MazeLoader.Loaded maze, Path path) throws IOException {
+        writeJson(maze.cells, maze.width, maze.height, header(maze.id, maze.name, maze.forms), path, Progress.NONE);
+    }
+
+    public static void writeJson(byte[] cells, int w, int h, byte[] header,
+                                 Path path, Progress progress) throws IOException {
+        MazeEvents.Export event = new MazeEvents.Export();
+        event.begin();
+        long start = System.nanoTime();
+        long bytes;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeJson(cells, w, h, header, channel, progress);
+            bytes = channel.position();
+        }
+        recordExport(event, start, path, "json", bytes, (long) w * h);
+    }
+
+    /** Shared by the JSON and .mazeb writers. */
+    static void recordExport(MazeEvents.Export event, long start, Path path,
+                             String format, long bytes, long cells) {
+        Metrics.timer("export").record(System.nanoTime() - start);
+        Metrics.count("export.bytes", bytes);
+        Metrics.count("export.cells", cells);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path.toString();
+            event.format = format;
+            event.bytes = bytes;
+            event.cells = cells;
+            event.commit();
+        }
+    }
+
+    /**
+     * Streams the maze JSON to a channel through one 64 KB buffer, encoding
+     * rows in place; the maze string is never built in memory. The same cells
+     * always give byte-identical output.
+     */
+    public static void writeJson(byte[] cells, int w, int h, byte[] header,
+                                 WritableByteChannel channel) throws IOException {
+        writeJson(cells, w, h, header, channel, Progress.NONE);
+    }
+
+    /** As above, reporting every 64 rows. */
+    public static void writeJson(byte[] cells, int w, int h, byte[] header,
+                                 WritableByteChannel channel, Progress progress) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Math.max(1 << 16, 2 * w + 1));
+        writeFully(channel, ByteBuffer.wrap(header));
+
+        byte[] line = new byte[2 * w + 1];
+        for (int y = 0; y < h; y++) {
+            if ((y & 63) == 0) progress.update("Writing rows", (double) y / h);
+            int n = 0;
+            if (y > 0) line[n++] = '/';
+            int row = y * w;
+            for (int x = 0; x < w; x++, n += 2) encodeCell(cells[row + x], line, n);
+            if (buf.remaining() < n) flush(channel, buf);
+            buf.put(line, 0, n);
+        }
+        if (buf.remaining() < FOOTER.length) flush(channel, buf);
+        buf.put(FOOTER);
+        flush(channel, buf);
+        progress.update("Writing rows", 1);
+    }
+
+    private static void flush(WritableByteChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        writeFully(channel, buf);
+        buf.clear();
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+}
@@ -12,7 +12,7 @@ public class MazeEditor extends JFrame {
     public MazeEditor() {
         setTitle("Maze Editor");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setSize(900, 850);
+        setSize(1220, 850);
         setLayout(new BorderLayout());
 
         int gridSize = 10;
@@ -22,11 +22,12 @@ public class MazeEditor extends JFrame {
         ToolbarFactory toolbarFactory = new ToolbarFactory(this, mazeGrid);
         add(toolbarFactory.createTopToolbar(), BorderLayout.NORTH);
         add(toolbarFactory.createLeftToolbar(), BorderLayout.WEST);
+        add(new AnalysisPanel(mazeGrid), BorderLayout.EAST);
 
         setVisible(true);
     }
 
-    // Mode and player getters/setters used by CellButton and toolbars
+    // Mode and player getters/setters used by MazeCanvas and toolbars
     public void setCurrentMode(Mode mode) {
         this.currentMode = mode;
     }
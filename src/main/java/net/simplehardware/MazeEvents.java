@@ -0,0 +1,109 @@
+package net.simplehardware;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events for the editor and generator hot paths. They
+ * cost next to nothing unless a recording is running, e.g.
+ * {@code java -XX:StartFlightRecording=filename=maze.jfr ...}, and show up
+ * under "MazeCreator" in JDK Mission Control.
+ */
+public class MazeEvents {
+
+    @Name("net.simplehardware.Generation")
+    @Label("Maze Generation")
+    @Category("MazeCreator")
+    @StackTrace(false)
+    public static class Generation extends Event {
+        @Label("Algorithm")
+        public String algorithm;
+        @Label("Width")
+        public int width;
+        @Label("Height")
+        public int height;
+        @Label("Players")
+        public int players;
+        @Label("Cells Carved")
+        @Description("Floor cells after carving, before placement")
+        public long cellsCarved;
+        @Label("Carve Time")
+        @Timespan
+        public long carveNanos;
+        @Label("Placed")
+        @Description("False if the grid was too small for every player")
+        public boolean placed;
+    }
+
+    @Name("net.simplehardware.Load")
+    @Label("Maze Load")
+    @Category("MazeCreator")
+    @StackTrace(false)
+    public static class Load extends Event {
+        @Label("Path")
+        public String path;
+        @Label("Format")
+        public String format;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        @Label("Cells")
+        public long cells;
+    }
+
+    @Name("net.simplehardware.Export")
+    @Label("Maze Export")
+    @Category("MazeCreator")
+    @StackTrace(false)
+    public static class Export extends Event {
+        @Label("Path")
+        public String path;
+        @Label("Format")
+        public String format;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        @Label("Cells")
+        public long cells;
+    }
+
+    @Name("net.simplehardware.Resize")
+    @Label("Grid Resize / Zoom")
+    @Category("MazeCreator")
+    @StackTrace(false)
+    public static class Resize extends Event {
+        @Label("Cause")
+        @Description("resize or zoom")
+        public String cause;
+        @Label("Width")
+        public int width;
+        @Label("Height")
+        public int height;
+        @Label("Cell Size")
+        public int cellSize;
+        @Label("Components")
+        @Description("Swing components in the scroll pane's view")
+        public int components;
+    }
+
+    @Name("net.simplehardware.Paint")
+    @Label("Grid Paint")
+    @Category("MazeCreator")
+    @StackTrace(false)
+    public static class Paint extends Event {
+        @Label("Cells Painted")
+        public int cells;
+        @Label("Cell Size")
+        public int cellSize;
+        @Label("Clip Width")
+        public int clipWidth;
+        @Label("Clip Height")
+        public int clipHeight;
+    }
+}
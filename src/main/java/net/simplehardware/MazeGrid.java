@@ -5,20 +5,32 @@ import java.awt.*;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 
-public class MazeGrid {
+public class MazeGrid implements MazeModel.Listener {
     private int gridSize;
-    private CellButton[][] cells;
-    private JPanel gridPanel;
+    private final MazeModel model;
+    private final UndoHistory history;
+    private final MazeCanvas canvas;
+    private final DistanceOverlay overlay;
     private final MazeEditor editor;
     private final JScrollPane scrollPane;
     private double zoomScale = 1.0;
     private static final int BASE_CELL_SIZE = 60;
 
+    // Open batches and the cells they have dirtied so far
+    private int batchDepth;
+    private int dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY;
+
     public MazeGrid(int size, MazeEditor editor) {
         this.gridSize = size;
         this.editor = editor;
-        buildGridPanel();
-        scrollPane = new JScrollPane(gridPanel);
+        this.model = new MazeModel(size);
+        this.history = new UndoHistory(
+                model, Long.getLong("mazecreator.undoBytes", UndoHistory.DEFAULT_MEMORY_CAP));
+        this.canvas = new MazeCanvas(model, history, editor, BASE_CELL_SIZE);
+        model.addListener(this);
+        this.overlay = new DistanceOverlay(model, canvas::repaintCells);
+        canvas.setOverlay(overlay);
+        scrollPane = new JScrollPane(canvas);
         scrollPane.getVerticalScrollBar().setUnitIncrement(16);
         scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
         scrollPane.addMouseWheelListener(new ZoomHandler());
@@ -32,6 +44,12 @@ public class MazeGrid {
                 .put(KeyStroke.getKeyStroke("control PLUS"), "zoomIn");
         scrollPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
                 .put(KeyStroke.getKeyStroke("control MINUS"), "zoomOut");
+        scrollPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke("control Z"), "undo");
+        scrollPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke("control Y"), "redo");
+        scrollPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke("control shift Z"), "redo");
 
         scrollPane.getActionMap().put("zoomIn", new AbstractAction() {
             @Override
@@ -45,20 +63,19 @@ public class MazeGrid {
                 zoomHandler.keyboardZoom(false);
             }
         });
-
-    }
-
-    private void buildGridPanel() {
-        gridPanel = new JPanel(new GridLayout(gridSize, gridSize));
-        cells = new CellButton[gridSize][gridSize];
-        for (int y = 0; y < gridSize; y++) {
-            for (int x = 0; x < gridSize; x++) {
-                CellButton cell = new CellButton(x, y, editor);
-                cell.setPreferredSize(new Dimension((int)(BASE_CELL_SIZE * zoomScale), (int)(BASE_CELL_SIZE * zoomScale)));
-                cells[x][y] = cell;
-                gridPanel.add(cell);
+        scrollPane.getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                history.undo();
             }
-        }
+        });
+        scrollPane.getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                history.redo();
+            }
+        });
+
     }
 
     /**
@@ -67,62 +84,110 @@ public class MazeGrid {
      */
     public void resizeGrid(int newSize) {
         if (newSize == gridSize) return;
+        batch(() -> model.resize(newSize, newSize, newSize > gridSize));
+    }
 
-        Mode[][] oldModes = null;
-        int[][] oldPlayerIds = null;
-
-        // Only copy if increasing size
-        if (newSize > gridSize) {
-            oldModes = new Mode[gridSize][gridSize];
-            oldPlayerIds = new int[gridSize][gridSize];
-            for (int x = 0; x < gridSize; x++) {
-                for (int y = 0; y < gridSize; y++) {
-                    oldModes[x][y] = cells[x][y].getMode();
-                    oldPlayerIds[x][y] = cells[x][y].getPlayerId();
-                }
-            }
-        }
+    // ------------------------------------------------
+    // Batched edits
+    // ------------------------------------------------
 
-        gridSize = newSize;
-        buildGridPanel();
+    /**
+     * Runs edits as one undo step with a single repaint of everything they
+     * touched, instead of one repaint per change event.
+     */
+    public void batch(Runnable edits) {
+        beginBatch();
+        try {
+            history.record(edits);
+        } finally {
+            commitBatch();
+        }
+    }
 
-        if (oldModes != null) {
-            int copyLimitX = Math.min(oldModes.length, gridSize);
-            int copyLimitY = Math.min(oldModes[0].length, gridSize);
-            for (int x = 0; x < copyLimitX; x++) {
-                for (int y = 0; y < copyLimitY; y++) {
-                    cells[x][y].setMode(oldModes[x][y], oldPlayerIds[x][y]);
-                }
-            }
+    /** Suspends repaints until the matching {@link #commitBatch()}. Batches nest. */
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            dirtyMinX = dirtyMinY = Integer.MAX_VALUE;
+            dirtyMaxX = dirtyMaxY = -1;
         }
+    }
 
-        scrollPane.setViewportView(gridPanel);
-        applyZoom();
-        scrollPane.revalidate();
-        scrollPane.repaint();
+    /** Ends a batch; the outermost commit repaints the dirty rectangle once. */
+    public void commitBatch() {
+        if (batchDepth == 0) throw new IllegalStateException("commitBatch without beginBatch");
+        if (--batchDepth > 0 || dirtyMaxX < 0) return;
+        canvas.repaintCells(dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY);
+    }
+
+    @Override
+    public void modelResized(int width, int height) {
+        gridSize = width;
+        applyZoom("resize");
+    }
+
+    @Override
+    public void cellsChanged(int minX, int minY, int maxX, int maxY) {
+        if (batchDepth == 0) {
+            canvas.repaintCells(minX, minY, maxX, maxY);
+            return;
+        }
+        dirtyMinX = Math.min(dirtyMinX, minX);
+        dirtyMinY = Math.min(dirtyMinY, minY);
+        dirtyMaxX = Math.max(dirtyMaxX, maxX);
+        dirtyMaxY = Math.max(dirtyMaxY, maxY);
     }
 
     public JScrollPane getScrollPane() {
         return scrollPane;
     }
 
-    public CellButton[][] getCells() {
-        return cells;
+    public MazeCanvas getCanvas() {
+        return canvas;
+    }
+
+    public MazeModel getModel() {
+        return model;
+    }
+
+    public UndoHistory getHistory() {
+        return history;
+    }
+
+    public DistanceOverlay getOverlay() {
+        return overlay;
     }
 
     public int getGridSize() {
         return gridSize;
     }
 
-    private void applyZoom() {
+    private void applyZoom(String cause) {
+        MazeEvents.Resize event = new MazeEvents.Resize();
+        event.begin();
+        long start = System.nanoTime();
         int newSize = Math.max(4, (int) (BASE_CELL_SIZE * zoomScale));
-        for (int x = 0; x < gridSize; x++) {
-            for (int y = 0; y < gridSize; y++) {
-                cells[x][y].setPreferredSize(new Dimension(newSize, newSize));
-            }
+        canvas.setCellSize(newSize);
+        // Lay out now, so the cost is measured here and the viewport knows the new size
+        scrollPane.validate();
+
+        Metrics.timer("grid." + cause).record(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.cause = cause;
+            event.width = model.getWidth();
+            event.height = model.getHeight();
+            event.cellSize = newSize;
+            event.components = countComponents(scrollPane);
+            event.commit();
+        }
+    }
+
+    private static int countComponents(Container c) {
+        int n = 1;
+        for (Component child : c.getComponents()) {
+            n += child instanceof Container container ? countComponents(container) : 1;
         }
-        gridPanel.revalidate();
-        gridPanel.repaint();
+        return n;
     }
 
     private class ZoomHandler implements MouseWheelListener {
@@ -148,7 +213,7 @@ public class MazeGrid {
             Point mouse = e.getPoint();
             double scaleFactor = zoomScale / oldScale;
 
-            applyZoom();
+            applyZoom("zoom");
 
             int newX = (int) ((viewPos.x + mouse.x) * scaleFactor - mouse.x);
             int newY = (int) ((viewPos.y + mouse.y) * scaleFactor - mouse.y);
@@ -168,7 +233,7 @@ public class MazeGrid {
             if (Math.abs(zoomScale - 1.0) < 0.05) zoomScale = 1.0;
             if (zoomScale == oldScale) return;
 
-            applyZoom();
+            applyZoom("zoom");
         }
 
     }
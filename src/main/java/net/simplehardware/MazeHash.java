@@ -0,0 +1,85 @@
+package net.simplehardware;
+
+/**
+ * 64-bit hash of a maze that is the same for all eight rotations and mirror
+ * images (the symmetries of the square). Zobrist-style: every (position,
+ * cell value) pair has a pseudo-random key, and a grid hashes to the XOR of
+ * the keys of its non-floor cells. The keys are derived by mixing the packed
+ * position and value instead of being looked up in a table, so any grid size
+ * works without allocation. One pass over the cells computes the hash in all
+ * eight orientations; the smallest is the canonical one.
+ */
+public class MazeHash {
+
+    public static final int SYMMETRIES = 8;
+
+    private MazeHash() {}
+
+    public static long canonical(MazeModel model) {
+        return canonical(model.cells(), model.getWidth(), model.getHeight());
+    }
+
+    public static long canonical(MazeLoader.Loaded maze) {
+        return canonical(maze.cells, maze.width, maze.height);
+    }
+
+    public static long canonical(byte[] cells, int w, int h) {
+        long[] hashes = all(cells, w, h);
+        long min = hashes[0];
+        for (int s = 1; s < SYMMETRIES; s++) {
+            if (Long.compareUnsigned(hashes[s], min) < 0) min = hashes[s];
+        }
+        return min;
+    }
+
+    /**
+     * The hash in each orientation: identity, mirror x, mirror y, rotate 180,
+     * then the four transposed variants (transpose, rotate 90 either way,
+     * anti-transpose).
+     */
+    public static long[] all(byte[] cells, int w, int h) {
+        long[] hashes = new long[SYMMETRIES];
+        long same = mix(((long) w << 32) | h);
+        long swapped = mix(((long) h << 32) | w);
+        for (int s = 0; s < SYMMETRIES; s++) hashes[s] = s < 4 ? same : swapped;
+
+        for (int y = 0, i = 0; y < h; y++) {
+            int fy = h - 1 - y;
+            for (int x = 0; x < w; x++, i++) {
+                int v = cells[i] & 0xFF;
+                if (v == MazeModel.FLOOR) continue;
+                int fx = w - 1 - x;
+                hashes[0] ^= key(x, y, v);
+                hashes[1] ^= key(fx, y, v);
+                hashes[2] ^= key(x, fy, v);
+                hashes[3] ^= key(fx, fy, v);
+                hashes[4] ^= key(y, x, v);
+                hashes[5] ^= key(fy, x, v);
+                hashes[6] ^= key(y, fx, v);
+                hashes[7] ^= key(fy, fx, v);
+            }
+        }
+        return hashes;
+    }
+
+    /** Hex form used in the duplicate index and in logs. */
+    public static String toHex(long hash) {
+        return String.format("%016x", hash);
+    }
+
+    public static long fromHex(String hex) {
+        return Long.parseUnsignedLong(hex, 16);
+    }
+
+    private static long key(int x, int y, int v) {
+        return mix(((long) y << 36) | ((long) x << 8) | v);
+    }
+
+    // SplitMix64 finalizer: every input bit affects every output bit
+    static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
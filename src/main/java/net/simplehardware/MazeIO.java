@@ -1,12 +1,20 @@
 package net.simplehardware;
 
-import com.google.gson.*;
 import java.io.*;
-import java.util.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 
 public class MazeIO {
 
+    /**
+     * Loads a maze chosen by the user. Reading and decoding run on a
+     * background worker behind a progress dialog; only the final apply to the
+     * grid runs on the event thread.
+     */
     public static void loadFromJson(
         MazeEditor editor,
         MazeGrid grid,
@@ -14,80 +22,38 @@ public class MazeIO {
     ) {
         JFileChooser chooser = new JFileChooser();
         chooser.setDialogTitle("Select Maze JSON to Load");
-        if (chooser.showOpenDialog(editor) == JFileChooser.APPROVE_OPTION) {
-            try (Reader reader = new FileReader(chooser.getSelectedFile())) {
-                MazeInfoData data = new Gson().fromJson(
-                    reader,
-                    MazeInfoData.class
-                );
-                applyMazeData(grid, data, gridSizeSpinner);
-                JOptionPane.showMessageDialog(
-                    editor,
-                    "Maze loaded successfully!"
-                );
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(
-                    editor,
-                    "Failed to load: " + ex.getMessage()
-                );
-            }
-        }
-    }
+        if (chooser.showOpenDialog(editor) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
 
-    private static void applyMazeData(
-        MazeGrid grid,
-        MazeInfoData data,
-        JSpinner spinner
-    ) {
-        if (data.maze == null) return;
-        String[] rows = data.maze.split("/");
-        int size = rows.length;
-        grid.resizeGrid(size);
-        spinner.setValue(size);
+        ProgressDialog dialog = new ProgressDialog(editor, "Loading " + file.getName());
+        ProgressWorker<MazeLoader.Loaded> worker = new ProgressWorker<>(dialog::setPhase) {
+            @Override
+            protected MazeLoader.Loaded doInBackground() throws IOException {
+                return MazeLoader.load(file, progress());
+            }
 
-        CellButton[][] cells = grid.getCells();
-        for (int y = 0; y < size; y++) {
-            String row = rows[y];
-            for (int x = 0; x < size; x++) {
-                char chType = row.charAt(2 * x);
-                char chOwner = row.charAt(2 * x + 1);
-                int pid = Character.isDigit(chOwner) ? chOwner - '0' : 0;
-                Mode mode = switch (chType) {
-                    case '#' -> Mode.WALL;
-                    case '@' -> Mode.START;
-                    case '!' -> Mode.FINISH;
-                    case 'S' -> Mode.SHEET;
-                    case 'A' -> Mode.FORM_A;
-                    case 'B' -> Mode.FORM_B;
-                    case 'C' -> Mode.FORM_C;
-                    case 'D' -> Mode.FORM_D;
-                    case 'E' -> Mode.FORM_E;
-                    case 'F' -> Mode.FORM_F;
-                    case 'G' -> Mode.FORM_G;
-                    case 'H' -> Mode.FORM_H;
-                    case 'I' -> Mode.FORM_I;
-                    case 'J' -> Mode.FORM_J;
-                    case 'K' -> Mode.FORM_K;
-                    case 'L' -> Mode.FORM_L;
-                    case 'M' -> Mode.FORM_M;
-                    case 'N' -> Mode.FORM_N;
-                    case 'O' -> Mode.FORM_O;
-                    case 'P' -> Mode.FORM_P;
-                    case 'Q' -> Mode.FORM_Q;
-                    case 'R' -> Mode.FORM_R;
-                    case '$' -> Mode.FORM_S;
-                    case 'T' -> Mode.FORM_T;
-                    case 'U' -> Mode.FORM_U;
-                    case 'V' -> Mode.FORM_V;
-                    case 'W' -> Mode.FORM_W;
-                    case 'X' -> Mode.FORM_X;
-                    case 'Y' -> Mode.FORM_Y;
-                    case 'Z' -> Mode.FORM_Z;
-                    default -> Mode.FLOOR;
-                };
-                cells[x][y].setMode(mode, pid);
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+                try {
+                    MazeLoader.Loaded loaded = get();
+                    grid.batch(() -> loaded.applyTo(grid.getModel()));
+                    gridSizeSpinner.setValue(grid.getGridSize());
+                    JOptionPane.showMessageDialog(
+                        editor,
+                        "Maze loaded successfully!"
+                    );
+                } catch (InterruptedException | ExecutionException ex) {
+                    JOptionPane.showMessageDialog(
+                        editor,
+                        "Failed to load: " + causeOf(ex).getMessage()
+                    );
+                }
             }
-        }
+        };
+        dialog.attach(worker);
+        worker.execute();
+        dialog.setVisible(true);
     }
 
     public static void exportJson(MazeEditor editor, MazeGrid grid) {
@@ -97,161 +63,141 @@ public class MazeIO {
             "Enter Maze Name:"
         );
         if (mazeId == null || mazeName == null) return;
+        if (!confirmValid(editor, grid.getModel())) return;
 
-        List<String> lines = new ArrayList<>();
-        Set<Character> formsFound = new HashSet<>();
-        for (int y = 0; y < grid.getCells().length; y++) {
-            StringBuilder sb = new StringBuilder();
-            for (int x = 0; x < grid.getCells().length; x++) {
-                CellButton c = grid.getCells()[x][y];
-                char content = switch (c.getMode()) {
-                    case WALL -> '#';
-                    case START -> '@';
-                    case FINISH -> '!';
-                    case SHEET -> 'S';
-                    case FORM_A -> {
-                        formsFound.add('A');
-                        yield 'A';
-                    }
-                    case FORM_B -> {
-                        formsFound.add('B');
-                        yield 'B';
-                    }
-                    case FORM_C -> {
-                        formsFound.add('C');
-                        yield 'C';
-                    }
-                    case FORM_D -> {
-                        formsFound.add('D');
-                        yield 'D';
-                    }
-                    case FORM_E -> {
-                        formsFound.add('E');
-                        yield 'E';
-                    }
-                    case FORM_F -> {
-                        formsFound.add('F');
-                        yield 'F';
-                    }
-                    case FORM_G -> {
-                        formsFound.add('G');
-                        yield 'G';
-                    }
-                    case FORM_H -> {
-                        formsFound.add('H');
-                        yield 'H';
-                    }
-                    case FORM_I -> {
-                        formsFound.add('I');
-                        yield 'I';
-                    }
-                    case FORM_J -> {
-                        formsFound.add('J');
-                        yield 'J';
-                    }
-                    case FORM_K -> {
-                        formsFound.add('K');
-                        yield 'K';
-                    }
-                    case FORM_L -> {
-                        formsFound.add('L');
-                        yield 'L';
-                    }
-                    case FORM_M -> {
-                        formsFound.add('M');
-                        yield 'M';
-                    }
-                    case FORM_N -> {
-                        formsFound.add('N');
-                        yield 'N';
-                    }
-                    case FORM_O -> {
-                        formsFound.add('O');
-                        yield 'O';
-                    }
-                    case FORM_P -> {
-                        formsFound.add('P');
-                        yield 'P';
-                    }
-                    case FORM_Q -> {
-                        formsFound.add('Q');
-                        yield 'Q';
-                    }
-                    case FORM_R -> {
-                        formsFound.add('R');
-                        yield 'R';
-                    }
-                    case FORM_S -> {
-                        formsFound.add('S');
-                        yield '$';
-                    }
-                    case FORM_T -> {
-                        formsFound.add('T');
-                        yield 'T';
-                    }
-                    case FORM_U -> {
-                        formsFound.add('U');
-                        yield 'U';
-                    }
-                    case FORM_V -> {
-                        formsFound.add('V');
-                        yield 'V';
-                    }
-                    case FORM_W -> {
-                        formsFound.add('W');
-                        yield 'W';
-                    }
-                    case FORM_X -> {
-                        formsFound.add('X');
-                        yield 'X';
-                    }
-                    case FORM_Y -> {
-                        formsFound.add('Y');
-                        yield 'Y';
-                    }
-                    case FORM_Z -> {
-                        formsFound.add('Z');
-                        yield 'Z';
-                    }
-                    default -> ' ';
-                };
-                if (content == '#' || content == ' ') {
-                    sb.append(content).append(content);
-                } else {
-                    sb.append(content).append(c.getPlayerId());
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(mazeId + ".json"));
+        if (chooser.showSaveDialog(editor) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+
+        // Encode a snapshot, so edits made while saving do not tear the file
+        MazeModel model = grid.getModel();
+        int w = model.getWidth();
+        int h = model.getHeight();
+        byte[] cells = model.copyCells();
+
+        ProgressDialog dialog = new ProgressDialog(editor, "Saving " + file.getName());
+        ProgressWorker<Void> worker = new ProgressWorker<>(dialog::setPhase) {
+            @Override
+            protected Void doInBackground() throws IOException {
+                writeAtomically(file.toPath(), tmp -> {
+                    if (MazeBinary.isBinary(file)) {
+                        List<FormInfo> forms = MazeCodec.formsOf(MazeCodec.formMask(cells));
+                        MazeBinary.write(cells, w, h, mazeId, mazeName, forms, tmp, progress());
+                    } else {
+                        byte[] header = MazeCodec.header(mazeId, mazeName, MazeCodec.formMask(cells));
+                        MazeCodec.writeJson(cells, w, h, header, tmp, progress());
+                    }
+                });
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(
+                        editor,
+                        "Maze saved successfully!"
+                    );
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(
+                        editor,
+                        "Error saving: " + causeOf(e).getMessage()
+                    );
                 }
             }
-            lines.add(sb.toString());
+        };
+        dialog.attach(worker);
+        worker.execute();
+        dialog.setVisible(true);
+    }
+
+    private interface PathWriter {
+        void write(Path path) throws IOException;
+    }
+
+    /**
+     * Writes to a temporary file next to target and moves it into place only
+     * once complete, so a cancelled or failed save leaves any existing file intact.
+     */
+    private static void writeAtomically(Path target, PathWriter writer) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            writer.write(tmp);
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // No atomic rename here, or the file is still mapped (Windows)
+                Files.copy(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                tmp.toFile().deleteOnExit();
+            }
         }
+    }
 
-        MazeInfoData maze = new MazeInfoData();
-        maze.id = mazeId;
-        maze.name = mazeName;
-        maze.forms = new ArrayList<>();
-        for (char formId : formsFound) {
-            String formName = "Form " + formId;
-            maze.forms.add(new FormInfo(formId, formName));
+    private static Throwable causeOf(Exception e) {
+        return e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /** Shows validation errors and lets the user cancel the export. */
+    private static boolean confirmValid(MazeEditor editor, MazeModel model) {
+        MazeValidator.Report report = new MazeValidator().validate(model);
+        if (report.isValid()) return true;
+
+        StringBuilder sb = new StringBuilder("The maze has problems:\n");
+        int shown = 0;
+        for (MazeValidator.Issue issue : report.issues) {
+            if (shown++ == 15) {
+                sb.append("... and ").append(report.issues.size() - 15).append(" more\n");
+                break;
+            }
+            sb.append(issue).append('\n');
         }
-        maze.maze = String.join("/", lines);
+        sb.append("\nExport anyway?");
+        return JOptionPane.showConfirmDialog(
+            editor,
+            sb.toString(),
+            "Validation",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.WARNING_MESSAGE
+        ) == JOptionPane.YES_OPTION;
+    }
 
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        JFileChooser chooser = new JFileChooser();
-        chooser.setSelectedFile(new File(mazeId + ".json"));
-        if (chooser.showSaveDialog(editor) == JFileChooser.APPROVE_OPTION) {
-            try (
-                FileWriter writer = new FileWriter(chooser.getSelectedFile())
-            ) {
-                gson.toJson(maze, writer);
-                JOptionPane.showMessageDialog(
-                    editor,
-                    "Maze saved successfully!"
-                );
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(
-                    editor,
-                    "Error saving: " + e.getMessage()
-                );
+    /**
+     * Encodes the model into the game-engine JSON structure in memory. The
+     * editor exports through {@link MazeCodec#writeJson} instead; this is
+     * kept for the codec benchmarks, which compare against it.
+     */
+    public static MazeInfoData toMazeInfoData(
+        MazeModel model,
+        String mazeId,
+        String mazeName
+    ) {
+        int w = model.getWidth();
+        int h = model.getHeight();
+        byte[] cells = model.cells();
+        byte[] line = new byte[2 * w];
+        StringBuilder sb = new StringBuilder(h * (2 * w + 1));
+        for (int y = 0; y < h; y++) {
+            if (y > 0) sb.append('/');
+            for (int x = 0; x < w; x++) {
+                MazeCodec.encodeCell(cells[y * w + x], line, 2 * x);
             }
+            for (byte b : line) sb.append((char) b);
         }
+
+        MazeInfoData maze = new MazeInfoData();
+        maze.id = mazeId;
+        maze.name = mazeName;
+        maze.forms = MazeCodec.formsOf(MazeCodec.formMask(cells));
+        maze.maze = sb.toString();
+        return maze;
     }
 }
@@ -0,0 +1,111 @@
+package net.simplehardware;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk map from {@link MazeHash#canonical canonical hash} to maze id, used
+ * to reject a maze that is a rotation, mirror image or copy of one already in
+ * a corpus. The file is plain text, one "hash id" line per maze, and is only
+ * ever appended to. Lookups are a hash map probe, so checking a new maze
+ * costs O(1) regardless of corpus size. Safe to share between threads.
+ */
+public class MazeIndex implements Closeable {
+
+    /** File name used inside an output directory when no index is given. */
+    public static final String DEFAULT_NAME = "mazes.index";
+
+    private final ConcurrentHashMap<Long, String> ids = new ConcurrentHashMap<>();
+    private final BufferedWriter out;
+
+    /** Opens the index at path, loading existing entries, or creates it. */
+    public MazeIndex(Path path) throws IOException {
+        if (Files.exists(path)) load(path);
+        out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads every complete entry. A run killed mid-commit can leave a last
+     * line without its newline, or cut short; that line is dropped and the
+     * file truncated before it, so the next commit starts on a fresh line.
+     * A malformed line anywhere else is an error.
+     */
+    private void load(Path path) throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        int start = 0;
+        int lineNo = 0;
+        while (start < data.length) {
+            lineNo++;
+            int end = start;
+            while (end < data.length && data[end] != '\n') end++;
+            boolean last = end >= data.length - 1;
+            if (end == data.length) {
+                truncate(path, start);
+                return;
+            }
+            String line = new String(data, start, end - start, StandardCharsets.UTF_8).strip();
+            if (!line.isEmpty()) {
+                int space = line.indexOf(' ');
+                try {
+                    ids.putIfAbsent(MazeHash.fromHex(line.substring(0, space)), line.substring(space + 1));
+                } catch (RuntimeException e) {
+                    if (!last) throw new IOException(path + ":" + lineNo + ": malformed index entry");
+                    truncate(path, start);
+                    return;
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        System.err.println(path + ": dropping incomplete last entry");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /** Id of the maze stored under hash, or null. */
+    public String get(long hash) {
+        return ids.get(hash);
+    }
+
+    /**
+     * Reserves hash for id. Returns null if it was free, otherwise the id
+     * that already holds it, which is id itself when the same maze was
+     * indexed by an earlier run. A claim is only written to disk by
+     * {@link #commit}; {@link #release} gives it up, e.g. when the export fails.
+     */
+    public String claim(long hash, String id) {
+        return ids.putIfAbsent(hash, id);
+    }
+
+    public synchronized void commit(long hash, String id) throws IOException {
+        out.write(MazeHash.toHex(hash));
+        out.write(' ');
+        out.write(id);
+        out.newLine();
+        out.flush();
+    }
+
+    public void release(long hash, String id) {
+        ids.remove(hash, id);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
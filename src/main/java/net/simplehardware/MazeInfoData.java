@@ -9,16 +9,3 @@ public class MazeInfoData {
     public List<FormInfo> forms;
     public String maze;
 }
-
-class FormInfo {
-
-    public char id;
-    public String name;
-
-    public FormInfo() {}
-
-    public FormInfo(char id, String name) {
-        this.id = id;
-        this.name = name;
-    }
-}
@@ -0,0 +1,216 @@
+package net.simplehardware;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Reads maze JSON with Gson's streaming {@link JsonReader} instead of
+ * reflective binding, and decodes the maze string straight into a packed
+ * cell array in one pass.
+ */
+public class MazeLoader {
+
+    /** A decoded maze, ready to hand to {@link MazeModel#setCells}. */
+    public static class Loaded {
+        public String id;
+        public String name;
+        public List<FormInfo> forms = new ArrayList<>();
+        public int width;
+        public int height;
+        public byte[] cells;
+
+        public void applyTo(MazeModel model) {
+            model.setCells(width, height, cells);
+        }
+    }
+
+    /** Thrown for maze strings whose rows are malformed; row and column are 0-based cells. */
+    public static class MazeFormatException extends IOException {
+        public final int row;
+        public final int column;
+
+        MazeFormatException(int row, int column, String message) {
+            super("Row " + row + ", column " + column + ": " + message);
+            this.row = row;
+            this.column = column;
+        }
+    }
+
+    /** Loads JSON, or the binary format for files ending in .mazeb. */
+    public static Loaded load(File file) throws IOException {
+        return load(file, Progress.NONE);
+    }
+
+    /**
+     * As {@link #load(File)}, reporting bytes read for the first half of the
+     * progress range and rows decoded for the second.
+     */
+    public static Loaded load(File file, Progress progress) throws IOException {
+        MazeEvents.Load event = new MazeEvents.Load();
+        event.begin();
+        long start = System.nanoTime();
+        boolean binary = MazeBinary.isBinary(file);
+        Loaded loaded = binary ? MazeBinary.read(file, progress) : loadJson(file, progress);
+
+        long bytes = file.length();
+        Metrics.timer("load").record(System.nanoTime() - start);
+        Metrics.count("load.bytes", bytes);
+        Metrics.count("load.cells", loaded.cells.length);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.format = binary ? "mazeb" : "json";
+            event.bytes = bytes;
+            event.cells = loaded.cells.length;
+            event.commit();
+        }
+        return loaded;
+    }
+
+    private static Loaded loadJson(File file, Progress progress) throws IOException {
+        long size = Math.max(1, file.length());
+        Progress reading = progress.range(0, 0.5);
+        InputStream counted = new FilterInputStream(new FileInputStream(file)) {
+            private long read;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    read += n;
+                    reading.update("Reading file", (double) read / size);
+                }
+                return n;
+            }
+        };
+        try (Reader reader = new BufferedReader(new InputStreamReader(counted, StandardCharsets.UTF_8), 1 << 16)) {
+            return load(reader, progress.range(0.5, 1));
+        }
+    }
+
+    public static Loaded load(Reader in) throws IOException {
+        return load(in, Progress.NONE);
+    }
+
+    /** Parses maze JSON, reporting progress while the maze rows are decoded. */
+    public static Loaded load(Reader in, Progress progress) throws IOException {
+        Loaded result = new Loaded();
+        try {
+            JsonReader reader = new JsonReader(in);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id" -> result.id = nextStringOrNull(reader);
+                    case "name" -> result.name = nextStringOrNull(reader);
+                    case "forms" -> readForms(reader, result.forms);
+                    case "maze" -> {
+                        String maze = nextStringOrNull(reader);
+                        if (maze != null) decode(maze, result, progress);
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (CancellationException e) {
+            throw e; // an IllegalStateException, but not a parse error
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("Invalid maze JSON: " + e.getMessage(), e);
+        }
+        if (result.cells == null) throw new IOException("Maze JSON has no \"maze\" field");
+        return result;
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static void readForms(JsonReader reader, List<FormInfo> forms) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            FormInfo form = new FormInfo();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id" -> {
+                        String id = reader.nextString();
+                        form.id = id.isEmpty() ? '?' : id.charAt(0);
+                    }
+                    case "name" -> form.name = nextStringOrNull(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            forms.add(form);
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Decodes the "/"-separated maze string. Every row must hold the same
+     * number of two-character cells.
+     */
+    public static void decode(String maze, Loaded into) throws MazeFormatException {
+        decode(maze, into, Progress.NONE);
+    }
+
+    /** As {@link #decode(String, Loaded)}, reporting every 64 rows. */
+    public static void decode(String maze, Loaded into, Progress progress) throws MazeFormatException {
+        int len = maze.length();
+        int firstRow = maze.indexOf('/');
+        if (firstRow < 0) firstRow = len;
+        if (firstRow == 0) throw new MazeFormatException(0, 0, "empty row");
+        if ((firstRow & 1) != 0) {
+            throw new MazeFormatException(0, firstRow / 2, "odd number of characters in row");
+        }
+        int w = firstRow / 2;
+        int stride = 2 * w + 1;
+        int h = (len + 1 + stride - 1) / stride;
+        byte[] cells = new byte[w * h];
+
+        int pos = 0;
+        for (int y = 0; y < h; y++) {
+            if ((y & 63) == 0) progress.update("Decoding rows", (double) y / h);
+            int row = y * w;
+            for (int x = 0; x < w; x++) {
+                if (pos + 1 >= len || maze.charAt(pos) == '/' || maze.charAt(pos + 1) == '/') {
+                    throw new MazeFormatException(y, x, "row is shorter than " + w + " cells");
+                }
+                int cell = MazeCodec.decodeCell(maze.charAt(pos), maze.charAt(pos + 1));
+                if (cell == -1) {
+                    throw new MazeFormatException(y, x, "unknown cell type '" + maze.charAt(pos) + "'");
+                }
+                if (cell < 0) {
+                    throw new MazeFormatException(y, x, "player id '" + maze.charAt(pos + 1)
+                        + "' is not 1-" + MazeModel.MAX_PLAYERS);
+                }
+                cells[row + x] = (byte) cell;
+                pos += 2;
+            }
+            if (pos < len) {
+                if (maze.charAt(pos) != '/') {
+                    throw new MazeFormatException(y, w, "row is longer than " + w + " cells");
+                }
+                pos++;
+                if (pos == len) throw new MazeFormatException(y + 1, 0, "empty row");
+            }
+        }
+
+        into.width = w;
+        into.height = h;
+        into.cells = cells;
+    }
+}
@@ -0,0 +1,205 @@
+package net.simplehardware;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Headless maze storage with no Swing dependency. Each cell is packed into a
+ * single byte: the low 5 bits hold the {@link Mode} ordinal and the high 3 bits
+ * hold the owning player (1-8, stored as 0-7) for modes that have an owner.
+ * Cells are stored row-major, so cell (x, y) lives at {@code y * width + x}.
+ */
+public class MazeModel {
+
+    /** Notified after cells change or the grid is resized. */
+    public interface Listener {
+        void cellsChanged(int minX, int minY, int maxX, int maxY);
+
+        default void modelResized(int width, int height) {}
+    }
+
+    /** Sees every single-cell write with its previous value; used for undo. */
+    public interface Recorder {
+        void record(int index, byte before, byte after);
+    }
+
+    public static final int MAX_PLAYERS = 8;
+    public static final byte FLOOR = 0;
+    public static final byte WALL = (byte) Mode.WALL.ordinal();
+
+    private static final Mode[] MODES = Mode.values();
+    private static final int TYPE_MASK = 0x1F;
+    private static final int OWNER_SHIFT = 5;
+
+    private int width;
+    private int height;
+    private byte[] cells;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private Recorder recorder;
+
+    public MazeModel(int size) {
+        this(size, size);
+    }
+
+    public MazeModel(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+    }
+
+    // ------------------------------------------------
+    // Cell encoding
+    // ------------------------------------------------
+    /** Throws IllegalArgumentException for owned modes with a player id outside 1-8. */
+    public static byte pack(Mode mode, int playerId) {
+        if (!mode.hasOwner()) return (byte) mode.ordinal();
+        if (playerId < 1 || playerId > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Player id " + playerId + " is not 1-" + MAX_PLAYERS);
+        }
+        return (byte) (mode.ordinal() | ((playerId - 1) << OWNER_SHIFT));
+    }
+
+    public static Mode modeOf(byte cell) {
+        return MODES[cell & TYPE_MASK];
+    }
+
+    public static int playerOf(byte cell) {
+        Mode mode = modeOf(cell);
+        return mode.hasOwner() ? ((cell & 0xFF) >>> OWNER_SHIFT) + 1 : 0;
+    }
+
+    public static boolean isWall(byte cell) {
+        return (cell & TYPE_MASK) == WALL;
+    }
+
+    // ------------------------------------------------
+    // Single cell access
+    // ------------------------------------------------
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public byte get(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    public Mode getMode(int x, int y) {
+        return modeOf(get(x, y));
+    }
+
+    public int getPlayerId(int x, int y) {
+        return playerOf(get(x, y));
+    }
+
+    public void set(int x, int y, Mode mode, int playerId) {
+        setRaw(x, y, pack(mode, playerId));
+    }
+
+    public void setRaw(int x, int y, byte cell) {
+        int i = y * width + x;
+        if (cells[i] == cell) return;
+        if (recorder != null) recorder.record(i, cells[i], cell);
+        cells[i] = cell;
+        fireCellsChanged(x, y, x, y);
+    }
+
+    // ------------------------------------------------
+    // Bulk access
+    // ------------------------------------------------
+
+    /** Direct access to the backing array; call {@link #fireAllChanged()} after writing to it. */
+    public byte[] cells() {
+        return cells;
+    }
+
+    public byte[] copyCells() {
+        return cells.clone();
+    }
+
+    public void fill(byte cell) {
+        Arrays.fill(cells, cell);
+        fireAllChanged();
+    }
+
+    public void fillRect(int minX, int minY, int maxX, int maxY, byte cell) {
+        for (int y = minY; y <= maxY; y++) {
+            Arrays.fill(cells, y * width + minX, y * width + maxX + 1, cell);
+        }
+        fireCellsChanged(minX, minY, maxX, maxY);
+    }
+
+    /** Replaces every cell, resizing first if the dimensions differ. */
+    public void setCells(int newWidth, int newHeight, byte[] newCells) {
+        if (newCells.length != newWidth * newHeight) {
+            throw new IllegalArgumentException(
+                "Expected " + newWidth * newHeight + " cells, got " + newCells.length
+            );
+        }
+        boolean resized = newWidth != width || newHeight != height;
+        width = newWidth;
+        height = newHeight;
+        cells = newCells.clone();
+        if (resized) fireResized();
+        fireAllChanged();
+    }
+
+    /**
+     * Resize the grid. If keepContents is set the overlapping region is
+     * copied, otherwise the new grid starts as all floor.
+     */
+    public void resize(int newWidth, int newHeight, boolean keepContents) {
+        if (newWidth == width && newHeight == height) return;
+        byte[] next = new byte[newWidth * newHeight];
+        if (keepContents) {
+            int copyW = Math.min(width, newWidth);
+            int copyH = Math.min(height, newHeight);
+            for (int y = 0; y < copyH; y++) {
+                System.arraycopy(cells, y * width, next, y * newWidth, copyW);
+            }
+        }
+        width = newWidth;
+        height = newHeight;
+        cells = next;
+        fireResized();
+    }
+
+    // ------------------------------------------------
+    // Listeners
+    // ------------------------------------------------
+    public void setRecorder(Recorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    public void fireAllChanged() {
+        fireCellsChanged(0, 0, width - 1, height - 1);
+    }
+
+    public void fireCellsChanged(int minX, int minY, int maxX, int maxY) {
+        for (Listener l : listeners) l.cellsChanged(minX, minY, maxX, maxY);
+    }
+
+    private void fireResized() {
+        for (Listener l : listeners) l.modelResized(width, height);
+    }
+}
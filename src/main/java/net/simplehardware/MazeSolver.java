@@ -0,0 +1,457 @@
+package net.simplehardware;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact shortest solutions per player for mazes with ordered forms and
+ * movable sheets. A player walks one cell per move; walking into a sheet
+ * pushes it one cell further if that cell is open and holds no other sheet,
+ * otherwise the move is blocked. All sheets are shared obstacles, whoever
+ * they belong to.
+ *
+ * <p>A search state (player cell, index of the next target, sheet cells) is
+ * packed into one long, using dense ids over the open cells so that more
+ * sheets fit. Sheets are interchangeable, so their ids are kept sorted. The
+ * search is A*; the heuristic is the BFS distance to the next target plus the
+ * remaining target-to-target distances, all measured with sheets treated as
+ * floor. Sheets can only make a route longer, so it never overestimates and
+ * the first goal popped is optimal. Expanded states live in an open-addressing
+ * long -> long map (state -> parent) and the frontier in a primitive binary
+ * heap. The budget covers those arrays plus the per-target distance tables;
+ * when they would outgrow it the search stops and reports it instead of
+ * running out of heap.
+ */
+public class MazeSolver {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int TARGET_BITS = 5;
+    private static final long NONE = -1;
+
+    // East, south, west, north, and their letters in a path
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    private static final char[] LETTERS = {'E', 'S', 'W', 'N'};
+
+    public enum Status {
+        SOLVED,
+        /** Every reachable state was expanded without completing the route. */
+        UNSOLVABLE,
+        /** The search stopped at the memory budget. */
+        BUDGET_EXCEEDED,
+        /** Too many sheets to pack the state into 63 bits, or no start/finish. */
+        UNSUPPORTED
+    }
+
+    public static class Solution {
+        public int player;
+        public Status status;
+        /** Optimal number of moves, -1 unless solved. */
+        public int moves = -1;
+        /** One letter per move: E, S, W or N. Empty unless solved. */
+        public String path = "";
+        public long expanded;
+        public long memoryBytes;
+        public String message;
+    }
+
+    public static class Report {
+        public int width;
+        public int height;
+        public int sheets;
+        public List<Solution> players = new ArrayList<>();
+
+        public String toJson() {
+            return GSON.toJson(this);
+        }
+    }
+
+    private final byte[] cells;
+    private final int w;
+    private final int h;
+    private final long memoryBudget;
+    private final int[] denseId;     // cell index -> dense id, -1 for walls
+    private final int[] cellOf;      // dense id -> cell index
+    private final int[] sheets;      // dense ids, sorted
+    private final int cellBits;
+
+    public MazeSolver(MazeLoader.Loaded maze) {
+        this(maze.cells, maze.width, maze.height, DEFAULT_MEMORY_BUDGET);
+    }
+
+    public MazeSolver(byte[] cells, int w, int h, long memoryBudget) {
+        this.cells = cells;
+        this.w = w;
+        this.h = h;
+        this.memoryBudget = memoryBudget;
+        denseId = new int[cells.length];
+        int open = 0;
+        for (int i = 0; i < cells.length; i++) {
+            denseId[i] = MazeModel.isWall(cells[i]) ? -1 : open++;
+        }
+        cellOf = new int[open];
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < cells.length; i++) {
+            if (denseId[i] < 0) continue;
+            cellOf[denseId[i]] = i;
+            if (MazeModel.modeOf(cells[i]) == Mode.SHEET) found.add(denseId[i]);
+        }
+        sheets = found.stream().mapToInt(Integer::intValue).toArray();
+        cellBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, open - 1)));
+    }
+
+    /** Solves every player that has a start, in player order. */
+    public Report solveAll() {
+        Report report = new Report();
+        report.width = w;
+        report.height = h;
+        report.sheets = sheets.length;
+        boolean[] present = new boolean[MazeModel.MAX_PLAYERS + 1];
+        for (byte c : cells) {
+            if (MazeModel.modeOf(c) == Mode.START) present[MazeModel.playerOf(c)] = true;
+        }
+        for (int p = 1; p <= MazeModel.MAX_PLAYERS; p++) {
+            if (present[p]) report.players.add(solve(p));
+        }
+        return report;
+    }
+
+    public Solution solve(int player) {
+        Solution s = new Solution();
+        s.player = player;
+
+        // Targets: forms in letter order, then the finish
+        int start = -1;
+        int finish = -1;
+        int[] forms = new int[26];
+        Arrays.fill(forms, -1);
+        for (int i = 0; i < cells.length; i++) {
+            Mode mode = MazeModel.modeOf(cells[i]);
+            if (!mode.hasOwner() || mode == Mode.SHEET || MazeModel.playerOf(cells[i]) != player) continue;
+            if (mode == Mode.START) start = i;
+            else if (mode == Mode.FINISH) finish = i;
+            else forms[mode.ordinal() - Mode.FORM_A.ordinal()] = i;
+        }
+        if (start < 0 || finish < 0) {
+            return unsupported(s, "Player " + player + " needs a start and a finish");
+        }
+        if (cellBits * (1 + sheets.length) + TARGET_BITS > 63) {
+            return unsupported(s, sheets.length + " sheets do not fit in a packed state on this map");
+        }
+        int[] route = Arrays.stream(forms).filter(i -> i >= 0).toArray();
+        int[] targets = Arrays.copyOf(route, route.length + 1);
+        targets[route.length] = finish;
+
+        // Heuristic tables: distance to each target, plus the rest of the route after it
+        int t = targets.length;
+        long tableBytes = (long) t * cells.length * Integer.BYTES;
+        if (tableBytes > memoryBudget) {
+            s.status = Status.BUDGET_EXCEEDED;
+            s.message = String.format("Distance tables for %d targets need %.1f MB, over the %d MB budget",
+                t, tableBytes / 1048576.0, memoryBudget >> 20);
+            s.memoryBytes = tableBytes;
+            return s;
+        }
+        int[][] toTarget = new int[t][];
+        int[] rest = new int[t + 1];
+        DistanceField field = new DistanceField(w, h);
+        for (int k = 0; k < t; k++) {
+            field.compute(cells, targets[k]);
+            toTarget[k] = field.distances().clone();
+        }
+        for (int k = t - 2; k >= 0; k--) {
+            int d = toTarget[k + 1][targets[k]];
+            if (d < 0) {
+                s.status = Status.UNSOLVABLE;
+                s.message = "Target " + (k + 2) + " is walled off from target " + (k + 1);
+                return s;
+            }
+            rest[k] = rest[k + 1] + d;
+        }
+        if (toTarget[0][start] < 0) {
+            s.status = Status.UNSOLVABLE;
+            s.message = "The first target is walled off from the start";
+            return s;
+        }
+
+        return search(s, start, targets, toTarget, rest, tableBytes);
+    }
+
+    private static Solution unsupported(Solution s, String message) {
+        s.status = Status.UNSUPPORTED;
+        s.message = message;
+        return s;
+    }
+
+    // ------------------------------------------------
+    // A*
+    // ------------------------------------------------
+    private Solution search(Solution s, int start, int[] targets, int[][] toTarget, int[] rest,
+                            long tableBytes) {
+        long startState = pack(denseId[start], 0, sheets);
+        int goal = targets.length;
+        LongMap closed = new LongMap();
+        LongHeap open = new LongHeap();
+        int[] sheetBuf = new int[sheets.length];
+        open.push(toTarget[0][start] + rest[0], 0, startState, NONE);
+
+        while (!open.isEmpty()) {
+            // Checked before the arrays double, so the search never allocates past the budget
+            if (tableBytes + closed.bytesAfterInsert() + open.bytesAfterPushes(4) > memoryBudget) {
+                s.status = Status.BUDGET_EXCEEDED;
+                s.message = "Stopped after " + s.expanded + " states at the "
+                    + (memoryBudget >> 20) + " MB budget";
+                s.memoryBytes = tableBytes + closed.bytes() + open.bytes();
+                return s;
+            }
+            int g = open.peekG();
+            long state = open.peekState();
+            long parent = open.peekParent();
+            open.pop();
+            if (!closed.putIfAbsent(state, parent)) continue;
+            s.expanded++;
+
+            int next = targetOf(state);
+            if (next == goal) {
+                s.status = Status.SOLVED;
+                s.moves = g;
+                s.path = path(closed, state);
+                s.memoryBytes = tableBytes + closed.bytes() + open.bytes();
+                Metrics.count("solver.expanded", s.expanded);
+                return s;
+            }
+
+            int pos = cellOf[playerOf(state)];
+            unpackSheets(state, sheetBuf);
+            int x = pos % w;
+            int y = pos / w;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (!open(nx, ny)) continue;
+                int to = ny * w + nx;
+                int[] moved = sheetBuf;
+                int pushed = Arrays.binarySearch(sheetBuf, denseId[to]);
+                if (pushed >= 0) {
+                    int bx = nx + DX[d];
+                    int by = ny + DY[d];
+                    if (!open(bx, by)) continue;
+                    int beyond = denseId[by * w + bx];
+                    if (Arrays.binarySearch(sheetBuf, beyond) >= 0) continue;
+                    moved = sheetBuf.clone();
+                    moved[pushed] = beyond;
+                    Arrays.sort(moved);
+                }
+                int nextTarget = to == targets[next] ? next + 1 : next;
+                long child = pack(denseId[to], nextTarget, moved);
+                if (closed.contains(child)) continue;
+                int hc = nextTarget == goal ? 0 : toTarget[nextTarget][to] + rest[nextTarget];
+                open.push(g + 1 + hc, g + 1, child, state);
+            }
+        }
+        s.status = Status.UNSOLVABLE;
+        s.message = "Sheets block every route";
+        s.memoryBytes = tableBytes + closed.bytes();
+        return s;
+    }
+
+    private boolean open(int x, int y) {
+        return x >= 0 && y >= 0 && x < w && y < h && !MazeModel.isWall(cells[y * w + x]);
+    }
+
+    /** Walks parent links back to the start and spells the moves. */
+    private String path(LongMap closed, long goal) {
+        List<Integer> positions = new ArrayList<>();
+        for (long state = goal; state != NONE; state = closed.get(state)) {
+            positions.add(cellOf[playerOf(state)]);
+        }
+        StringBuilder sb = new StringBuilder(positions.size());
+        for (int k = positions.size() - 1; k > 0; k--) {
+            int from = positions.get(k);
+            int to = positions.get(k - 1);
+            int delta = to - from;
+            sb.append(delta == 1 ? LETTERS[0] : delta == w ? LETTERS[1] : delta == -1 ? LETTERS[2] : LETTERS[3]);
+        }
+        return sb.toString();
+    }
+
+    // ------------------------------------------------
+    // State packing: [sheets ... | player | next target], low bits first
+    // ------------------------------------------------
+    private long pack(int player, int next, int[] sheetIds) {
+        long state = next | ((long) player << TARGET_BITS);
+        int shift = TARGET_BITS + cellBits;
+        for (int id : sheetIds) {
+            state |= (long) id << shift;
+            shift += cellBits;
+        }
+        return state;
+    }
+
+    private static int targetOf(long state) {
+        return (int) (state & ((1 << TARGET_BITS) - 1));
+    }
+
+    private int playerOf(long state) {
+        return (int) ((state >>> TARGET_BITS) & ((1L << cellBits) - 1));
+    }
+
+    private void unpackSheets(long state, int[] out) {
+        int shift = TARGET_BITS + cellBits;
+        long mask = (1L << cellBits) - 1;
+        for (int k = 0; k < out.length; k++) {
+            out[k] = (int) ((state >>> shift) & mask);
+            shift += cellBits;
+        }
+    }
+
+    // ------------------------------------------------
+    // Primitive collections
+    // ------------------------------------------------
+
+    /** Open-addressing long -> long map with linear probing; keys are never negative. */
+    private static final class LongMap {
+        private long[] keys = new long[1 << 10];
+        private long[] values = new long[1 << 10];
+        private int size;
+
+        LongMap() {
+            Arrays.fill(keys, NONE);
+        }
+
+        long bytes() {
+            return 16L * keys.length;
+        }
+
+        long bytesAfterInsert() {
+            return (size + 1) * 2 > keys.length ? 2 * bytes() : bytes();
+        }
+
+        boolean contains(long key) {
+            return keys[slot(keys, key)] == key;
+        }
+
+        long get(long key) {
+            int i = slot(keys, key);
+            return keys[i] == key ? values[i] : NONE;
+        }
+
+        /** Returns false if key was already present. */
+        boolean putIfAbsent(long key, long value) {
+            int i = slot(keys, key);
+            if (keys[i] == key) return false;
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) grow();
+            return true;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            Arrays.fill(keys, NONE);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == NONE) continue;
+                int j = slot(keys, oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+
+        private static int slot(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int i = (int) MazeHash.mix(key) & mask;
+            while (keys[i] != NONE && keys[i] != key) i = (i + 1) & mask;
+            return i;
+        }
+    }
+
+    /**
+     * Binary min-heap of (f, g, state, parent) in parallel arrays. Equal f
+     * prefers the larger g, which reaches the goal sooner on long corridors.
+     */
+    private static final class LongHeap {
+        private long[] order = new long[1 << 10];   // f << 32 | (MAX - g)
+        private long[] states = new long[1 << 10];
+        private long[] parents = new long[1 << 10];
+        private int size;
+
+        long bytes() {
+            return 24L * order.length;
+        }
+
+        long bytesAfterPushes(int n) {
+            return size + n > order.length ? 2 * bytes() : bytes();
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int f, int g, long state, long parent) {
+            if (size == order.length) {
+                order = Arrays.copyOf(order, size * 2);
+                states = Arrays.copyOf(states, size * 2);
+                parents = Arrays.copyOf(parents, size * 2);
+            }
+            long key = ((long) f << 32) | (Integer.MAX_VALUE - g);
+            int i = size++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (order[up] <= key) break;
+                move(up, i);
+                i = up;
+            }
+            set(i, key, state, parent);
+        }
+
+        int peekG() {
+            return Integer.MAX_VALUE - (int) order[0];
+        }
+
+        long peekState() {
+            return states[0];
+        }
+
+        long peekParent() {
+            return parents[0];
+        }
+
+        void pop() {
+            size--;
+            if (size == 0) return;
+            long key = order[size];
+            long state = states[size];
+            long parent = parents[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && order[child + 1] < order[child]) child++;
+                if (order[child] >= key) break;
+                move(child, i);
+                i = child;
+            }
+            set(i, key, state, parent);
+        }
+
+        private void move(int from, int to) {
+            order[to] = order[from];
+            states[to] = states[from];
+            parents[to] = parents[from];
+        }
+
+        private void set(int i, long key, long state, long parent) {
+            order[i] = key;
+            states[i] = state;
+            parents[i] = parent;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package net.simplehardware;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that every player has exactly one start and one finish, that its
+ * forms run A, B, C... without gaps or duplicates, and that the chain
+ * START -> A -> B -> ... -> FINISH is walkable. One instance reuses its BFS
+ * buffers across calls, so keep one per thread when validating many mazes.
+ */
+public class MazeValidator {
+
+    public enum Severity { ERROR, WARNING }
+
+    /** One finding, located at a cell when it concerns one (x, y are -1 otherwise). */
+    public record Issue(Severity severity, int player, int x, int y, String message) {
+        @Override
+        public String toString() {
+            String where = x >= 0 ? " at (" + x + ", " + y + ")" : "";
+            String who = player > 0 ? "Player " + player + ": " : "";
+            return severity + " " + who + message + where;
+        }
+    }
+
+    public static class Report {
+        public final List<Issue> issues = new ArrayList<>();
+        /** Route length START -> forms -> FINISH per player (index 1-8), -1 if broken. */
+        public final int[] routeLengths = new int[MazeModel.MAX_PLAYERS + 1];
+
+        public boolean isValid() {
+            return errorCount() == 0;
+        }
+
+        public long errorCount() {
+            return issues.stream().filter(i -> i.severity() == Severity.ERROR).count();
+        }
+
+        void add(Severity severity, int player, int index, int width, String message) {
+            int x = index >= 0 ? index % width : -1;
+            int y = index >= 0 ? index / width : -1;
+            issues.add(new Issue(severity, player, x, y, message));
+        }
+    }
+
+    private static final int FORMS = 26;
+
+    private final DistanceField field = new DistanceField(0, 0);
+    // Per player: start, finish and form cell indices, plus occurrence counts
+    private final int[] starts = new int[MazeModel.MAX_PLAYERS + 1];
+    private final int[] finishes = new int[MazeModel.MAX_PLAYERS + 1];
+    private final int[] startCount = new int[MazeModel.MAX_PLAYERS + 1];
+    private final int[] finishCount = new int[MazeModel.MAX_PLAYERS + 1];
+    private final int[][] forms = new int[MazeModel.MAX_PLAYERS + 1][FORMS];
+    private final int[][] formCount = new int[MazeModel.MAX_PLAYERS + 1][FORMS];
+
+    public Report validate(MazeModel model) {
+        return validate(model.cells(), model.getWidth(), model.getHeight());
+    }
+
+    public Report validate(byte[] cells, int w, int h) {
+        Report report = new Report();
+        Arrays.fill(startCount, 0);
+        Arrays.fill(finishCount, 0);
+        for (int[] c : formCount) Arrays.fill(c, 0);
+
+        boolean[] present = new boolean[MazeModel.MAX_PLAYERS + 1];
+        for (int i = 0; i < cells.length; i++) {
+            byte c = cells[i];
+            Mode mode = MazeModel.modeOf(c);
+            if (!mode.hasOwner() || mode == Mode.SHEET) continue;
+            int p = MazeModel.playerOf(c);
+            present[p] = true;
+            if (mode == Mode.START) {
+                if (startCount[p]++ > 0) report.add(Severity.ERROR, p, i, w, "Second start");
+                starts[p] = i;
+            } else if (mode == Mode.FINISH) {
+                if (finishCount[p]++ > 0) report.add(Severity.ERROR, p, i, w, "Second finish");
+                finishes[p] = i;
+            } else {
+                int f = mode.ordinal() - Mode.FORM_A.ordinal();
+                if (formCount[p][f]++ > 0) {
+                    report.add(Severity.ERROR, p, i, w, "Duplicate form " + (char) ('A' + f));
+                }
+                forms[p][f] = i;
+            }
+        }
+
+        boolean anyPlayer = false;
+        for (int p = 1; p <= MazeModel.MAX_PLAYERS; p++) {
+            report.routeLengths[p] = -1;
+            if (!present[p]) continue;
+            anyPlayer = true;
+            checkPlayer(report, cells, w, h, p);
+        }
+        if (!anyPlayer) report.add(Severity.WARNING, 0, -1, w, "No players placed");
+        return report;
+    }
+
+    private void checkPlayer(Report report, byte[] cells, int w, int h, int p) {
+        if (startCount[p] == 0) report.add(Severity.ERROR, p, -1, w, "No start");
+        if (finishCount[p] == 0) report.add(Severity.ERROR, p, -1, w, "No finish");
+
+        // Forms must run A, B, C... with no gap
+        int last = -1;
+        for (int f = 0; f < FORMS; f++) {
+            if (formCount[p][f] == 0) continue;
+            if (f != last + 1) {
+                report.add(Severity.ERROR, p, forms[p][f], w,
+                        "Form " + (char) ('A' + f) + " without form " + (char) ('A' + last + 1));
+            }
+            last = f;
+        }
+        if (startCount[p] == 0 || finishCount[p] == 0) return;
+
+        // Walk the chain START -> A -> B -> ... -> FINISH
+        field.ensureSize(w, h);
+        int from = starts[p];
+        int total = 0;
+        String fromName = "start";
+        for (int f = 0; f <= FORMS; f++) {
+            int target;
+            String targetName;
+            if (f < FORMS) {
+                if (formCount[p][f] == 0) continue;
+                target = forms[p][f];
+                targetName = "form " + (char) ('A' + f);
+            } else {
+                target = finishes[p];
+                targetName = "finish";
+            }
+            field.compute(cells, from);
+            int d = field.get(target);
+            if (d == DistanceField.UNREACHABLE) {
+                report.add(Severity.ERROR, p, target, w,
+                        "Cannot reach " + targetName + " from " + fromName);
+                return;
+            }
+            total += d;
+            from = target;
+            fromName = targetName;
+        }
+        report.routeLengths[p] = total;
+    }
+}
@@ -0,0 +1,84 @@
+package net.simplehardware;
+
+import com.google.gson.GsonBuilder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters and timers, safe to update from any thread. The
+ * headless tools dump them as JSON with {@code --metrics FILE}.
+ */
+public class Metrics {
+
+    /** Count, total and maximum of recorded durations. */
+    public static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long maxNanos() {
+            return maxNanos.get();
+        }
+    }
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, k -> new Timer());
+    }
+
+    public static void count(String name, long delta) {
+        COUNTERS.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    public static long counter(String name) {
+        LongAdder c = COUNTERS.get(name);
+        return c == null ? 0 : c.sum();
+    }
+
+    public static void reset() {
+        TIMERS.clear();
+        COUNTERS.clear();
+    }
+
+    /** All counters and timers, sorted by name; times in milliseconds. */
+    public static String toJson() {
+        Map<String, Long> counters = new TreeMap<>();
+        COUNTERS.forEach((name, c) -> counters.put(name, c.sum()));
+
+        Map<String, Map<String, Object>> timers = new TreeMap<>();
+        TIMERS.forEach((name, t) -> {
+            long n = t.count();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("count", n);
+            m.put("totalMs", t.totalNanos() / 1e6);
+            m.put("meanMs", n == 0 ? 0 : t.totalNanos() / 1e6 / n);
+            m.put("maxMs", t.maxNanos() / 1e6);
+            timers.put(name, m);
+        });
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("counters", counters);
+        root.put("timers", timers);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(root);
+    }
+}
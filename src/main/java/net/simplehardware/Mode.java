@@ -32,5 +32,14 @@ public enum Mode {
     FORM_X,
     FORM_Y,
     FORM_Z,
-    SHEET,
+    SHEET;
+
+    public boolean isForm() {
+        return ordinal() >= FORM_A.ordinal() && ordinal() <= FORM_Z.ordinal();
+    }
+
+    /** Start, finish, sheet and form cells belong to a player; floor and wall do not. */
+    public boolean hasOwner() {
+        return this == START || this == FINISH || this == SHEET || isForm();
+    }
 }
@@ -0,0 +1,81 @@
+package net.simplehardware;
+
+import java.util.SplittableRandom;
+
+/**
+ * Randomized Prim. The frontier is a flat int[] of room indices with O(1)
+ * swap-removal of a random entry. Produces a radial texture with many short
+ * branches.
+ */
+public class PrimAlgorithm implements MazeAlgorithm {
+
+    private static final byte OUTSIDE = 0;
+    private static final byte FRONTIER = 1;
+    private static final byte INSIDE = 2;
+
+    @Override
+    public String getName() {
+        return "Prim";
+    }
+
+    @Override
+    public void carve(byte[] cells, int w, int h, SplittableRandom rng) {
+        int rw = (w - 1) / 2;
+        int rh = (h - 1) / 2;
+        int rooms = rw * rh;
+
+        byte[] state = new byte[rooms];
+        int[] frontier = new int[rooms];
+        int size = 0;
+        int[] options = new int[4];
+
+        int start = rng.nextInt(rooms);
+        state[start] = INSIDE;
+        cells[cellOf(start, rw, w)] = MazeModel.FLOOR;
+        size = addFrontier(start, rw, rh, state, frontier, size);
+
+        while (size > 0) {
+            int pick = rng.nextInt(size);
+            int room = frontier[pick];
+            frontier[pick] = frontier[--size];
+
+            // Connect to a random neighbour that is already part of the maze
+            int rx = room % rw;
+            int ry = room / rw;
+            int count = 0;
+            if (rx > 0 && state[room - 1] == INSIDE) options[count++] = room - 1;
+            if (rx + 1 < rw && state[room + 1] == INSIDE) options[count++] = room + 1;
+            if (ry > 0 && state[room - rw] == INSIDE) options[count++] = room - rw;
+            if (ry + 1 < rh && state[room + rw] == INSIDE) options[count++] = room + rw;
+            int other = options[rng.nextInt(count)];
+
+            int a = cellOf(room, rw, w);
+            int b = cellOf(other, rw, w);
+            cells[a] = MazeModel.FLOOR;
+            cells[(a + b) >>> 1] = MazeModel.FLOOR;
+            state[room] = INSIDE;
+            size = addFrontier(room, rw, rh, state, frontier, size);
+        }
+    }
+
+    private static int addFrontier(int room, int rw, int rh, byte[] state, int[] frontier, int size) {
+        int rx = room % rw;
+        int ry = room / rw;
+        if (rx > 0) size = mark(room - 1, state, frontier, size);
+        if (rx + 1 < rw) size = mark(room + 1, state, frontier, size);
+        if (ry > 0) size = mark(room - rw, state, frontier, size);
+        if (ry + 1 < rh) size = mark(room + rw, state, frontier, size);
+        return size;
+    }
+
+    private static int mark(int room, byte[] state, int[] frontier, int size) {
+        if (state[room] != OUTSIDE) return size;
+        state[room] = FRONTIER;
+        frontier[size] = room;
+        return size + 1;
+    }
+
+    private static int cellOf(int room, int rw, int w) {
+        return (2 * (room / rw) + 1) * w + 2 * (room % rw) + 1;
+    }
+}
@@ -0,0 +1,19 @@
+package net.simplehardware;
+
+/**
+ * Progress callback for long-running work. Called between steps on the
+ * working thread; an implementation may throw
+ * {@link java.util.concurrent.CancellationException} to abort the work.
+ */
+public interface Progress {
+
+    Progress NONE = (phase, fraction) -> {};
+
+    /** fraction runs from 0 to 1 over the whole task. */
+    void update(String phase, double fraction);
+
+    /** Maps this task's [0, 1] onto [from, to] of the receiver's range. */
+    default Progress range(double from, double to) {
+        return (phase, fraction) -> update(phase, from + (to - from) * fraction);
+    }
+}
@@ -0,0 +1,59 @@
+package net.simplehardware;
+
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * Modeless dialog with a progress bar and a Cancel button for a running
+ * {@link SwingWorker}. Closes itself when the worker is done.
+ */
+public class ProgressDialog extends JDialog {
+
+    private final JProgressBar bar = new JProgressBar(0, 100);
+    private final JButton cancelBtn = new JButton("Cancel");
+    private String phase = "Starting";
+
+    public ProgressDialog(Window owner, String title) {
+        super(owner, title, ModalityType.MODELESS);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+        bar.setStringPainted(true);
+        bar.setPreferredSize(new Dimension(300, bar.getPreferredSize().height));
+        updateText();
+
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(bar, BorderLayout.CENTER);
+        JPanel buttons = new JPanel();
+        buttons.add(cancelBtn);
+        panel.add(buttons, BorderLayout.SOUTH);
+        setContentPane(panel);
+        pack();
+        setLocationRelativeTo(owner);
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+        updateText();
+    }
+
+    private void updateText() {
+        bar.setString(phase + " " + bar.getValue() + "%");
+    }
+
+    /** Follows the worker's progress, cancels it on Cancel and closes when it is done. */
+    public void attach(SwingWorker<?, ?> worker) {
+        cancelBtn.addActionListener(e -> worker.cancel(true));
+        worker.addPropertyChangeListener(evt -> {
+            switch (evt.getPropertyName()) {
+                case "progress" -> {
+                    bar.setValue((Integer) evt.getNewValue());
+                    updateText();
+                }
+                case "state" -> {
+                    if (evt.getNewValue() == SwingWorker.StateValue.DONE) dispose();
+                }
+                default -> {}
+            }
+        });
+    }
+}
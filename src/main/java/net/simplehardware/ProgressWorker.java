@@ -0,0 +1,45 @@
+package net.simplehardware;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import javax.swing.*;
+
+/**
+ * SwingWorker whose background work reports through a {@link Progress}.
+ * Fractions become the 0-100 "progress" property, phase changes are passed to
+ * a listener on the event thread, and once the worker is cancelled the next
+ * progress call throws {@link CancellationException}.
+ */
+public abstract class ProgressWorker<T> extends SwingWorker<T, String> {
+
+    private final Consumer<String> phaseListener;
+    // Written by whichever thread reports: the worker, or fork-join workers
+    // it hands progress() to. A lost race only publishes a phase twice.
+    private volatile String lastPhase;
+
+    protected ProgressWorker(Consumer<String> phaseListener) {
+        this.phaseListener = phaseListener;
+    }
+
+    /** Progress to hand to the background work. */
+    protected final Progress progress() {
+        return this::report;
+    }
+
+    private void report(String phase, double fraction) {
+        if (isCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+        if (!phase.equals(lastPhase)) {
+            lastPhase = phase;
+            publish(phase);
+        }
+        setProgress((int) Math.max(0, Math.min(100, Math.round(100 * fraction))));
+    }
+
+    @Override
+    protected void process(List<String> phases) {
+        phaseListener.accept(phases.get(phases.size() - 1));
+    }
+}
@@ -0,0 +1,206 @@
+package net.simplehardware;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates 2- and 4-player mazes that are fair by construction. One
+ * fundamental region is carved with the chosen {@link MazeAlgorithm} and
+ * copied around the centre room: rotated by 180 degrees for two players, or
+ * by 90, 180 and 270 degrees for four. The copies are joined only through the
+ * centre room, so the result is still a perfect maze. Player 1's items are
+ * placed inside the region and every other player gets their rotated images,
+ * so all routes have exactly the same length and no placement attempt is ever
+ * rejected.
+ *
+ * <p>The symmetry needs an odd number of rooms on each side with a room in
+ * the middle, i.e. sizes of the form 4k + 3. Other sizes use the largest such
+ * area in the top-left corner and leave the remaining rows and columns as
+ * wall. Four players also need a square area.
+ */
+public class SymmetricGenerator {
+
+    private SymmetricGenerator() {}
+
+    public static boolean supports(int players) {
+        return players == 2 || players == 4;
+    }
+
+    public static boolean generate(MazeModel model, FairPlacement placement, MazeAlgorithm algorithm, long seed) {
+        return generate(model, placement, algorithm, seed, Progress.NONE);
+    }
+
+    /**
+     * Carves and places as described above. Returns false if the grid is too
+     * small; throws IllegalArgumentException for player counts other than 2 or 4.
+     */
+    public static boolean generate(MazeModel model, FairPlacement placement, MazeAlgorithm algorithm,
+                                   long seed, Progress progress) {
+        return generateWithResult(model, placement, algorithm, seed, progress) != null;
+    }
+
+    /** As {@link #generate}, returning the placement, or null if the grid was too small. */
+    static FairPlacement.Result generateWithResult(MazeModel model, FairPlacement placement,
+                                                   MazeAlgorithm algorithm, long seed, Progress progress) {
+        int players = placement.getPlayers();
+        if (!supports(players)) {
+            throw new IllegalArgumentException("Symmetric generation needs 2 or 4 players, not " + players);
+        }
+        int w = model.getWidth();
+        int h = model.getHeight();
+        int ew = usable(w);
+        int eh = usable(h);
+        if (players == 4) ew = eh = Math.min(ew, eh);
+        if (ew < 7 || eh < 7) return null;
+
+        SplittableRandom rng = new SplittableRandom(seed);
+        MazeEvents.Generation event = new MazeEvents.Generation();
+        event.begin();
+        long start = System.nanoTime();
+        byte[] cells = model.cells();
+        Symmetry symmetry = new Symmetry(players == 4, w, ew, eh);
+
+        // --- Step 1: carve the fundamental region, copy it, join at the centre ---
+        progress.update("Carving " + algorithm.getName() + " (symmetric)", 0);
+        Arrays.fill(cells, MazeModel.WALL);
+        int a = (ew - 3) / 4;          // rooms from the centre room to the edge
+        int b = (eh - 3) / 4;
+        if (players == 4) {
+            // Pinwheel quarter: rooms x 0..a, y 0..a-1
+            carveRegion(cells, w, 0, 0, a + 1, a, algorithm, rng);
+        } else {
+            // Top half as two rectangles, joined once along their shared edge
+            carveRegion(cells, w, 0, 0, a + 1, b, algorithm, rng);
+            carveRegion(cells, w, a + 1, 0, a, b + 1, algorithm, rng);
+            int y = rng.nextInt(b);
+            cells[(2 * y + 1) * w + 2 * a + 2] = MazeModel.FLOOR;
+        }
+        for (int y = 0; y < eh; y++) {
+            for (int x = 0; x < ew; x++) {
+                int i = y * w + x;
+                if (cells[i] != MazeModel.FLOOR) continue;
+                for (int t = 1; t < players; t++) cells[symmetry.image(i, t)] = MazeModel.FLOOR;
+            }
+        }
+        int centre = symmetry.centre();
+        cells[centre] = MazeModel.FLOOR;
+        int[] steps = players == 4 ? new int[] {-w, 1, w, -1} : new int[] {-w, w};
+        for (int step : steps) cells[centre + step] = MazeModel.FLOOR;
+        long carveNanos = System.nanoTime() - start;
+        long carved = 0;
+        for (byte c : cells) if (c == MazeModel.FLOOR) carved++;
+
+        // --- Step 2: place player 1 in the region, everyone else by symmetry ---
+        progress.update("Placing players", 0.5);
+        FairPlacement.Result result = place(cells, w, h, symmetry, players, placement.getFormsPerPlayer(), rng);
+        if (result != null) {
+            for (int p = 0; p < players; p++) {
+                int pid = p + 1;
+                cells[result.starts[p]] = MazeModel.pack(Mode.START, pid);
+                for (int f = 0; f < result.forms[p].length; f++) {
+                    cells[result.forms[p][f]] = MazeModel.pack(Mode.values()[Mode.FORM_A.ordinal() + f], pid);
+                }
+                cells[result.finishes[p]] = MazeModel.pack(Mode.FINISH, pid);
+            }
+        }
+        progress.update("Placing players", 1);
+        model.fireAllChanged();
+
+        LabyrinthGenerator.recordGeneration(event, start, carveNanos, carved,
+                algorithm.getName() + " (symmetric)", w, h, players, result != null);
+        return result;
+    }
+
+    /** Largest size of the form 4k + 3 that fits in n. */
+    static int usable(int n) {
+        return n < 3 ? 0 : n - ((n - 3) % 4);
+    }
+
+    /** Carves rw x rh rooms starting at room (rx, ry) as one perfect maze. */
+    private static void carveRegion(byte[] cells, int w, int rx, int ry, int rw, int rh,
+                                    MazeAlgorithm algorithm, SplittableRandom rng) {
+        int sw = 2 * rw + 1;
+        int sh = 2 * rh + 1;
+        byte[] sub = new byte[sw * sh];
+        LabyrinthGenerator.generateStructure(sub, sw, sh, algorithm, rng);
+        for (int y = 1; y < sh - 1; y++) {
+            int row = (2 * ry + y) * w + 2 * rx;
+            for (int x = 1; x < sw - 1; x++) {
+                if (sub[y * sw + x] == MazeModel.FLOOR) cells[row + x] = MazeModel.FLOOR;
+            }
+        }
+    }
+
+    private static FairPlacement.Result place(byte[] cells, int w, int h, Symmetry symmetry,
+                                              int players, int forms, SplittableRandom rng) {
+        // Items may only go where no other player's copy can land
+        boolean[] taken = new boolean[cells.length];
+        for (int i = 0; i < cells.length; i++) taken[i] = !symmetry.isRepresentative(i, players);
+        int free = 0;
+        for (int i = 0; i < cells.length; i++) if (!taken[i] && cells[i] == MazeModel.FLOOR) free++;
+        if (free < forms + 2) return null;
+
+        DistanceField field = new DistanceField(w, h);
+        field.compute(cells, symmetry.centre());
+        int current = FairPlacement.pickCell(field.distances(), taken, Integer.MAX_VALUE, rng)[0];
+        if (current < 0) return null;
+        taken[current] = true;
+        field.compute(cells, current);
+        int segment = Math.max(1, field.getMaxDistance() / 2);
+
+        FairPlacement.Result result = new FairPlacement.Result(players, forms, segment * (forms + 1));
+        int[] route = new int[forms + 2];
+        route[0] = current;
+        int length = 0;
+        for (int s = 1; s <= forms + 1; s++) {
+            field.compute(cells, current);
+            int next = FairPlacement.pickCell(field.distances(), taken, segment, rng)[0];
+            if (next < 0) return null;
+            taken[next] = true;
+            length += field.get(next);
+            route[s] = current = next;
+        }
+
+        for (int p = 0; p < players; p++) {
+            result.routeLengths[p] = length;
+            result.starts[p] = symmetry.image(route[0], p);
+            for (int f = 0; f < forms; f++) result.forms[p][f] = symmetry.image(route[f + 1], p);
+            result.finishes[p] = symmetry.image(route[forms + 1], p);
+        }
+        return result;
+    }
+
+    /** Rotation about the centre of the usable ew x eh area of a w-wide grid. */
+    private record Symmetry(boolean quarter, int w, int ew, int eh) {
+
+        int centre() {
+            return (eh / 2) * w + ew / 2;
+        }
+
+        /** Cell i rotated t times by 90 degrees (quarter) or 180 degrees. */
+        int image(int i, int t) {
+            int x = i % w;
+            int y = i / w;
+            for (int k = 0; k < t; k++) {
+                if (quarter) {
+                    int nx = ew - 1 - y;
+                    y = x;
+                    x = nx;
+                } else {
+                    x = ew - 1 - x;
+                    y = eh - 1 - y;
+                }
+            }
+            return y * w + x;
+        }
+
+        /** True if i lies in the usable area and is the smallest index of a full orbit. */
+        boolean isRepresentative(int i, int players) {
+            if (i % w >= ew || i / w >= eh) return false;
+            for (int t = 1; t < players; t++) {
+                if (image(i, t) <= i) return false;
+            }
+            return true;
+        }
+    }
+}
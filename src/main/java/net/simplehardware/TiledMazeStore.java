@@ -0,0 +1,369 @@
+package net.simplehardware;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.SplittableRandom;
+
+/**
+ * Cell storage for maps far beyond what {@link MazeModel} holds on the heap.
+ * The grid is cut into 64 x 64 tiles stored in a file (.mazet); a tile is read
+ * into an off-heap buffer the first time a cell in it is touched and written
+ * back when it is evicted. At most {@code cacheBytes} of tiles are resident,
+ * least recently used first out, so a 20,000 x 20,000 map can be generated,
+ * viewed and edited with a few megabytes of heap.
+ *
+ * <pre>
+ * magic     "MZTL"
+ * version   u16 (1)
+ * tile      u16 (64)
+ * width     u32
+ * height    u32
+ * ...       zero padding up to 4096 bytes
+ * tiles     4096 bytes each, row-major by tile; edge tiles are padded
+ * </pre>
+ *
+ * All integers are little-endian. Cells are packed as in {@link MazeModel}.
+ * Tiles that were never written read as {@link MazeModel#FLOOR}, so a new
+ * file is sparse until it is filled. Access is synchronized; the store may be
+ * shared by a viewer and a background worker.
+ */
+public class TiledMazeStore implements Closeable {
+
+    public static final String EXTENSION = ".mazet";
+    public static final int TILE = 64;
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+    private static final int TILE_BYTES = TILE * TILE;
+    private static final int HEADER_BYTES = 4096;
+    private static final int MAGIC = 0x4C_54_5A_4D; // "MZTL" read little-endian
+    private static final short VERSION = 1;
+    private static final int MIN_TILES = 16;
+
+    /** One resident tile: its cells off-heap, and whether they differ from the file. */
+    private static class Tile {
+        final int index;
+        final ByteBuffer cells;
+        boolean dirty;
+
+        Tile(int index, ByteBuffer cells) {
+            this.index = index;
+            this.cells = cells;
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int tilesY;
+    private final int maxTiles;
+
+    // Access order: iteration starts at the least recently used tile
+    private final LinkedHashMap<Integer, Tile> resident = new LinkedHashMap<>(64, 0.75f, true);
+    // Buffers of evicted tiles, reused so off-heap memory never exceeds maxTiles
+    private final ArrayDeque<ByteBuffer> spare = new ArrayDeque<>();
+    private int allocated;
+    private Tile last; // most recently used tile, skips the map on repeated hits
+    private long loads;
+    private long evictions;
+    private long writes;
+
+    private TiledMazeStore(Path path, FileChannel channel, int width, int height, long cacheBytes) {
+        this.path = path;
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.tilesX = (width + TILE - 1) / TILE;
+        this.tilesY = (height + TILE - 1) / TILE;
+        this.maxTiles = (int) Math.max(MIN_TILES, Math.min(Integer.MAX_VALUE, cacheBytes / TILE_BYTES));
+    }
+
+    /** Creates (or truncates) path as an all-floor width x height map. */
+    public static TiledMazeStore create(Path path, int width, int height, long cacheBytes) throws IOException {
+        if (width < 1 || height < 1) throw new IllegalArgumentException("Map must be at least 1x1");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) TILE).putInt(width).putInt(height);
+            header.clear();
+            writeFully(channel, header, 0);
+            return new TiledMazeStore(path, channel, width, height, cacheBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static TiledMazeStore open(Path path, long cacheBytes) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {}
+            header.flip();
+            if (header.remaining() < 16 || header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a tiled maze file");
+            }
+            short version = header.getShort();
+            if (version != VERSION) throw new IOException("Unsupported tiled maze version " + version);
+            int tile = header.getShort();
+            if (tile != TILE) throw new IOException("Unsupported tile size " + tile);
+            int width = header.getInt();
+            int height = header.getInt();
+            if (width < 1 || height < 1) throw new IOException("Bad map size " + width + "x" + height);
+            return new TiledMazeStore(path, channel, width, height, cacheBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    // ------------------------------------------------
+    // Cell access
+    // ------------------------------------------------
+    public synchronized byte get(int x, int y) {
+        checkBounds(x, y);
+        return tile(x / TILE, y / TILE).cells.get(offset(x, y));
+    }
+
+    public synchronized void set(int x, int y, byte cell) {
+        checkBounds(x, y);
+        Tile t = tile(x / TILE, y / TILE);
+        t.cells.put(offset(x, y), cell);
+        t.dirty = true;
+    }
+
+    /** Overwrites grid row y with the first width bytes of row. */
+    public synchronized void writeRow(int y, byte[] row) {
+        checkBounds(0, y);
+        int ty = y / TILE;
+        int base = (y % TILE) * TILE;
+        for (int tx = 0; tx < tilesX; tx++) {
+            int x0 = tx * TILE;
+            Tile t = tile(tx, ty);
+            t.cells.put(base, row, x0, Math.min(TILE, width - x0));
+            t.dirty = true;
+        }
+    }
+
+    /**
+     * Copies the w x h block at (x0, y0) into out, row-major with stride w.
+     * One call per repaint keeps lock and lookup costs per tile, not per cell.
+     */
+    public synchronized void readRect(int x0, int y0, int w, int h, byte[] out) {
+        if (w <= 0 || h <= 0) return;
+        checkBounds(x0, y0);
+        checkBounds(x0 + w - 1, y0 + h - 1);
+        for (int ty = y0 / TILE; ty <= (y0 + h - 1) / TILE; ty++) {
+            int fromY = Math.max(y0, ty * TILE);
+            int toY = Math.min(y0 + h, (ty + 1) * TILE);
+            for (int tx = x0 / TILE; tx <= (x0 + w - 1) / TILE; tx++) {
+                int fromX = Math.max(x0, tx * TILE);
+                int len = Math.min(x0 + w, (tx + 1) * TILE) - fromX;
+                ByteBuffer cells = tile(tx, ty).cells;
+                for (int y = fromY; y < toY; y++) {
+                    cells.get(offset(fromX, y), out, (y - y0) * w + fromX - x0, len);
+                }
+            }
+        }
+    }
+
+    private void checkBounds(int x, int y) {
+        if (!inBounds(x, y)) {
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") outside " + width + "x" + height);
+        }
+    }
+
+    private static int offset(int x, int y) {
+        return (y % TILE) * TILE + x % TILE;
+    }
+
+    // ------------------------------------------------
+    // Tile cache
+    // ------------------------------------------------
+    private Tile tile(int tx, int ty) {
+        int index = ty * tilesX + tx;
+        if (last != null && last.index == index) return last;
+        Tile t = resident.get(index);
+        if (t == null) {
+            t = load(index);
+            resident.put(index, t);
+        }
+        return last = t;
+    }
+
+    private Tile load(int index) {
+        ByteBuffer cells = spare.poll();
+        if (cells == null && allocated >= maxTiles) {
+            evictEldest();
+            cells = spare.poll();
+        }
+        if (cells == null) {
+            cells = ByteBuffer.allocateDirect(TILE_BYTES);
+            allocated++;
+        }
+        cells.clear();
+        try {
+            long pos = tileOffset(index);
+            while (cells.hasRemaining()) {
+                int n = channel.read(cells, pos + cells.position());
+                if (n < 0) break; // past the end of a sparse file: never written
+            }
+            while (cells.hasRemaining()) cells.put(MazeModel.FLOOR);
+        } catch (IOException e) {
+            spare.push(cells);
+            throw new IllegalStateException("Cannot read tile " + index + " of " + path, e);
+        }
+        loads++;
+        Metrics.count("tiles.loads", 1);
+        return new Tile(index, cells);
+    }
+
+    private void evictEldest() {
+        Iterator<Tile> it = resident.values().iterator();
+        Tile t = it.next();
+        it.remove();
+        if (t == last) last = null;
+        if (t.dirty) writeBack(t);
+        spare.push(t.cells);
+        evictions++;
+        Metrics.count("tiles.evictions", 1);
+    }
+
+    private void writeBack(Tile t) {
+        try {
+            writeFully(channel, t.cells.duplicate().clear(), tileOffset(t.index));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write tile " + t.index + " of " + path, e);
+        }
+        t.dirty = false;
+        writes++;
+    }
+
+    private static long tileOffset(int index) {
+        return HEADER_BYTES + (long) index * TILE_BYTES;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) channel.write(buf, pos + buf.position());
+    }
+
+    /** Writes every modified tile back to the file; resident tiles stay cached. */
+    public synchronized void flush() throws IOException {
+        try {
+            for (Tile t : resident.values()) if (t.dirty) writeBack(t);
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            flush();
+        } finally {
+            resident.clear();
+            spare.clear();
+            last = null;
+            channel.close();
+        }
+    }
+
+    /**
+     * Closes without writing anything back and deletes the file, for a map
+     * whose generation was cancelled or failed part way.
+     */
+    public synchronized void discard() throws IOException {
+        resident.clear();
+        spare.clear();
+        last = null;
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    // ------------------------------------------------
+    // Statistics
+    // ------------------------------------------------
+    public synchronized int residentTiles() {
+        return resident.size();
+    }
+
+    /** Off-heap bytes held by tile buffers, resident or spare. */
+    public synchronized long residentBytes() {
+        return (long) allocated * TILE_BYTES;
+    }
+
+    public long capacityBytes() {
+        return (long) maxTiles * TILE_BYTES;
+    }
+
+    public synchronized long loads() {
+        return loads;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized long writes() {
+        return writes;
+    }
+
+    // ------------------------------------------------
+    // Generation
+    // ------------------------------------------------
+
+    /**
+     * Carves a perfect maze over the whole map with Eller's algorithm, which
+     * needs only one row in memory, so the heap cost is O(width) at any height.
+     * The other algorithms need the full grid as an array and are not offered
+     * here. Returns the number of floor cells.
+     */
+    public long generate(long seed, Progress progress) throws IOException {
+        if (width < 5 || height < 5) throw new IllegalArgumentException("Maze must be at least 5x5");
+        MazeEvents.Generation event = new MazeEvents.Generation();
+        event.begin();
+        long start = System.nanoTime();
+        long[] carved = new long[1];
+        progress.update("Carving Eller", 0);
+        EllerAlgorithm.generate(width, height, new SplittableRandom(seed), (y, row) -> {
+            writeRow(y, row);
+            for (int x = 0; x < width; x++) if (row[x] == MazeModel.FLOOR) carved[0]++;
+            if (y % TILE == TILE - 1) progress.update("Carving Eller", (double) y / height);
+        });
+        progress.update("Writing tiles", 1);
+        flush();
+        long carveNanos = System.nanoTime() - start;
+        LabyrinthGenerator.recordGeneration(event, start, carveNanos, carved[0],
+                "Eller (tiled)", width, height, 0, false);
+        return carved[0];
+    }
+}
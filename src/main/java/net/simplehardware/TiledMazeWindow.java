@@ -0,0 +1,306 @@
+package net.simplehardware;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.swing.*;
+
+/**
+ * Viewer and editor for a {@link TiledMazeStore}. Only the cells under the
+ * viewport are read, so the tiles that are resident follow the scroll
+ * position. Edits use the editor's current mode and go straight to the
+ * store; there is no undo for large maps.
+ */
+public class TiledMazeWindow extends JFrame {
+
+    private static final int[] CELL_SIZES = {1, 2, 4, 8, 16, 24};
+
+    private final TiledMazeStore store;
+    private final MazeEditor editor;
+    private final TiledCanvas canvas;
+    private final JLabel status = new JLabel();
+    private final Timer statusTimer;
+    private int zoom = 2;
+
+    public TiledMazeWindow(MazeEditor editor, TiledMazeStore store) {
+        super(store.getPath().getFileName() + " (" + store.getWidth() + "x" + store.getHeight() + ")");
+        this.store = store;
+        this.editor = editor;
+        this.canvas = new TiledCanvas();
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JScrollPane scrollPane = new JScrollPane(canvas);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+
+        JButton zoomOut = new JButton("-");
+        zoomOut.addActionListener(e -> setZoom(scrollPane, zoom - 1));
+        JButton zoomIn = new JButton("+");
+        zoomIn.addActionListener(e -> setZoom(scrollPane, zoom + 1));
+        JButton flushBtn = new JButton("Save");
+        flushBtn.addActionListener(e -> {
+            try {
+                store.flush();
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Failed to save: " + ex.getMessage());
+            }
+        });
+
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        bottom.add(new JLabel("Zoom:"));
+        bottom.add(zoomOut);
+        bottom.add(zoomIn);
+        bottom.add(flushBtn);
+        bottom.add(status);
+
+        setLayout(new BorderLayout());
+        add(scrollPane, BorderLayout.CENTER);
+        add(bottom, BorderLayout.SOUTH);
+        setSize(1000, 800);
+        setLocationRelativeTo(editor);
+
+        statusTimer = new Timer(500, e -> updateStatus());
+        statusTimer.start();
+        updateStatus();
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                statusTimer.stop();
+                try {
+                    store.close();
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(editor, "Failed to save " + store.getPath() + ": " + ex.getMessage());
+                }
+            }
+        });
+    }
+
+    private void setZoom(JScrollPane scrollPane, int newZoom) {
+        newZoom = Math.max(0, Math.min(CELL_SIZES.length - 1, newZoom));
+        if (newZoom == zoom) return;
+        // Keep the cell at the centre of the viewport in place
+        JViewport viewport = scrollPane.getViewport();
+        Rectangle view = viewport.getViewRect();
+        int oldSize = CELL_SIZES[zoom];
+        int newSize = CELL_SIZES[newZoom];
+        int cx = (view.x + view.width / 2) / oldSize;
+        int cy = (view.y + view.height / 2) / oldSize;
+        zoom = newZoom;
+        canvas.updatePreferredSize();
+        canvas.revalidate();
+        viewport.validate();
+        viewport.setViewPosition(new Point(
+            Math.max(0, cx * newSize - view.width / 2),
+            Math.max(0, cy * newSize - view.height / 2)
+        ));
+        canvas.repaint();
+    }
+
+    private void updateStatus() {
+        status.setText(String.format(
+            "%d tiles resident (%.1f / %.0f MB), %d loads, %d evictions",
+            store.residentTiles(), store.residentBytes() / 1048576.0, store.capacityBytes() / 1048576.0,
+            store.loads(), store.evictions()
+        ));
+    }
+
+    // ------------------------------------------------
+    // Canvas
+    // ------------------------------------------------
+    private class TiledCanvas extends JComponent {
+        private byte[] buffer = new byte[0];
+
+        TiledCanvas() {
+            setOpaque(true);
+            updatePreferredSize();
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    if (SwingUtilities.isLeftMouseButton(e)) apply(e.getPoint(), false);
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if ((e.getModifiersEx() & MouseEvent.BUTTON1_DOWN_MASK) != 0) apply(e.getPoint(), true);
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+        }
+
+        void updatePreferredSize() {
+            int cellSize = CELL_SIZES[zoom];
+            setPreferredSize(new Dimension(store.getWidth() * cellSize, store.getHeight() * cellSize));
+        }
+
+        private void apply(Point p, boolean dragging) {
+            int cellSize = CELL_SIZES[zoom];
+            int x = p.x / cellSize;
+            int y = p.y / cellSize;
+            if (p.x < 0 || p.y < 0 || !store.inBounds(x, y)) return;
+            Mode current = editor.getCurrentMode();
+            if (dragging && current != Mode.WALL && current != Mode.FLOOR) return;
+            int pid = current.hasOwner() ? editor.getCurrentPlayerId() : 0;
+            store.set(x, y, MazeModel.pack(current, pid));
+            repaint(x * cellSize, y * cellSize, cellSize, cellSize);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            long start = System.nanoTime();
+            int cellSize = CELL_SIZES[zoom];
+            int minX = Math.max(0, clip.x / cellSize);
+            int minY = Math.max(0, clip.y / cellSize);
+            int maxX = Math.min(store.getWidth() - 1, (clip.x + clip.width - 1) / cellSize);
+            int maxY = Math.min(store.getHeight() - 1, (clip.y + clip.height - 1) / cellSize);
+            int w = maxX - minX + 1;
+            int h = maxY - minY + 1;
+            if (w <= 0 || h <= 0) return;
+            if (buffer.length < w * h) buffer = new byte[w * h];
+            store.readRect(minX, minY, w, h, buffer);
+
+            // Runs of equal cells in a row are filled at once; at small zoom
+            // most of a row is a handful of runs
+            boolean gridLines = cellSize >= 8;
+            for (int y = 0; y < h; y++) {
+                int py = (minY + y) * cellSize;
+                int row = y * w;
+                for (int x = 0; x < w; ) {
+                    byte cell = buffer[row + x];
+                    int end = x + 1;
+                    if (!gridLines) while (end < w && buffer[row + end] == cell) end++;
+                    g.setColor(MazeCanvas.colorOf(MazeModel.modeOf(cell), MazeModel.playerOf(cell)));
+                    g.fillRect((minX + x) * cellSize, py, (end - x) * cellSize, cellSize);
+                    if (gridLines) {
+                        g.setColor(Color.GRAY);
+                        g.drawRect((minX + x) * cellSize, py, cellSize - 1, cellSize - 1);
+                    }
+                    x = end;
+                }
+            }
+            Metrics.timer("paint.tiled").record(System.nanoTime() - start);
+            Metrics.count("paint.cells", (long) w * h);
+        }
+    }
+
+    // ------------------------------------------------
+    // Opening
+    // ------------------------------------------------
+
+    /**
+     * Asks for a .mazet file. An existing file is opened; a new one is first
+     * generated at the size the user enters, in the background.
+     */
+    public static void openOrCreate(MazeEditor editor) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Open or Create Large Map");
+        chooser.setSelectedFile(new File("large" + TiledMazeStore.EXTENSION));
+        if (chooser.showDialog(editor, "Open") != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+
+        if (file.exists()) {
+            try {
+                new TiledMazeWindow(editor, TiledMazeStore.open(file.toPath(), TiledMazeStore.DEFAULT_CACHE_BYTES))
+                    .setVisible(true);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(editor, "Failed to open: " + ex.getMessage());
+            }
+            return;
+        }
+
+        String input = JOptionPane.showInputDialog(editor, "New map size (width = height):", "20000");
+        if (input == null) return;
+        int size;
+        try {
+            size = Integer.parseInt(input.trim());
+            if (size < 5) throw new NumberFormatException();
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(editor, "Size must be a number of at least 5");
+            return;
+        }
+        generateAndOpen(editor, file.toPath(), size, ThreadLocalRandom.current().nextLong());
+    }
+
+    private static void generateAndOpen(MazeEditor editor, Path path, int size, long seed) {
+        ProgressDialog dialog = new ProgressDialog(editor, "Generating " + path.getFileName());
+        ProgressWorker<TiledMazeStore> worker = new ProgressWorker<>(dialog::setPhase) {
+            // The store once opened; guarded by this. A cancel that lands
+            // after generation finishes still has to close it, from
+            // whichever side sees the cancellation last.
+            private TiledMazeStore opened;
+
+            @Override
+            protected TiledMazeStore doInBackground() throws IOException {
+                // Generate next to the target and move it into place only when
+                // complete, so a cancelled or failed run never leaves a
+                // half-carved map that a later open would accept
+                Path dir = path.toAbsolutePath().getParent();
+                Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+                TiledMazeStore store = TiledMazeStore.create(tmp, size, size, TiledMazeStore.DEFAULT_CACHE_BYTES);
+                try {
+                    store.generate(seed, progress());
+                    store.close();
+                    try {
+                        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        // No atomic rename here
+                        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    store.discard();
+                    throw e;
+                }
+                if (isCancelled()) throw new CancellationException();
+                TiledMazeStore result = TiledMazeStore.open(path, TiledMazeStore.DEFAULT_CACHE_BYTES);
+                synchronized (this) {
+                    if (isCancelled()) {
+                        result.close();
+                        throw new CancellationException();
+                    }
+                    opened = result;
+                }
+                return result;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    synchronized (this) {
+                        if (opened != null) closeQuietly(opened);
+                    }
+                    return;
+                }
+                try {
+                    new TiledMazeWindow(editor, get()).setVisible(true);
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(editor, "Failed to generate: " + cause.getMessage());
+                }
+            }
+        };
+        dialog.attach(worker);
+        worker.execute();
+        dialog.setVisible(true);
+    }
+
+    private static void closeQuietly(TiledMazeStore store) {
+        try {
+            store.close();
+        } catch (IOException ex) {
+            System.err.println("Failed to close " + store.getPath() + ": " + ex.getMessage());
+        }
+    }
+}
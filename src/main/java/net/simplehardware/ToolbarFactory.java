@@ -1,6 +1,7 @@
 package net.simplehardware;
 
 import java.awt.*;
+import java.util.concurrent.ThreadLocalRandom;
 import javax.swing.*;
 
 public class ToolbarFactory {
@@ -45,6 +46,18 @@ public class ToolbarFactory {
             int newSize = (int) gridSizeSpinner.getValue();
             grid.resizeGrid(newSize);
         });
+        // Keep the spinner in step when undo/redo or loading changes the size
+        grid.getModel().addListener(new MazeModel.Listener() {
+            @Override
+            public void cellsChanged(int minX, int minY, int maxX, int maxY) {}
+
+            @Override
+            public void modelResized(int width, int height) {
+                if ((int) gridSizeSpinner.getValue() != width) {
+                    gridSizeSpinner.setValue(width);
+                }
+            }
+        });
 
         JLabel formsLabel = new JLabel("Forms:");
         String[] formOptions = {
@@ -92,34 +105,117 @@ public class ToolbarFactory {
         saveBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
         saveBtn.addActionListener(e -> MazeIO.exportJson(editor, grid));
 
+        JButton largeBtn = new JButton("Large Map...");
+        largeBtn.setToolTipText("Open or generate a tiled map too large for the grid, e.g. 20000x20000");
+        largeBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+        largeBtn.addActionListener(e -> TiledMazeWindow.openOrCreate(editor));
+
         JButton clearBtn = new JButton("Clear All");
         clearBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
-        clearBtn.addActionListener(e -> {
-            for (CellButton[] row : grid.getCells()) {
-                for (CellButton cell : row) {
-                    cell.setMode(Mode.FLOOR, 0);
-                }
-            }
-        });
+        clearBtn.addActionListener(e ->
+            grid.batch(() -> grid.getModel().fill(MazeModel.FLOOR))
+        );
 
         JButton topWall = new JButton("Edge Walls");
         topWall.setAlignmentX(Component.CENTER_ALIGNMENT);
-        topWall.addActionListener(e -> {
-            int n = grid.getCells().length;
-            for (int i = 0; i < n; i++) {
-                grid.getCells()[i][0].setMode(Mode.WALL, 0);
-                grid.getCells()[i][n - 1].setMode(Mode.WALL, 0);
-                grid.getCells()[0][i].setMode(Mode.WALL, 0);
-                grid.getCells()[n - 1][i].setMode(Mode.WALL, 0);
-            }
+        topWall.addActionListener(e -> grid.batch(() -> {
+            MazeModel model = grid.getModel();
+            int w = model.getWidth();
+            int h = model.getHeight();
+            model.fillRect(0, 0, w - 1, 0, MazeModel.WALL);
+            model.fillRect(0, h - 1, w - 1, h - 1, MazeModel.WALL);
+            model.fillRect(0, 0, 0, h - 1, MazeModel.WALL);
+            model.fillRect(w - 1, 0, w - 1, h - 1, MazeModel.WALL);
+        }));
+
+        JComboBox<String> algorithmDropdown = new JComboBox<>(
+            MazeAlgorithm.all().stream().map(MazeAlgorithm::getName).toArray(String[]::new)
+        );
+        algorithmDropdown.setAlignmentX(Component.CENTER_ALIGNMENT);
+        algorithmDropdown.setMaximumSize(algorithmDropdown.getPreferredSize());
+
+        JCheckBox symmetricBox = new JCheckBox("Symmetric");
+        symmetricBox.setToolTipText("Rotate one quarter of the maze for all 4 players: identical routes");
+        symmetricBox.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JComboBox<String> bestOfDropdown = new JComboBox<>(new String[] {
+            "Best of 1", "Best of 8", "Best of 32", "Best of 128"
         });
+        bestOfDropdown.setToolTipText("Generate several candidates in parallel and keep the fairest");
+        bestOfDropdown.setAlignmentX(Component.CENTER_ALIGNMENT);
+        bestOfDropdown.setMaximumSize(bestOfDropdown.getPreferredSize());
 
         JButton genBtn = new JButton("Gen Labyrinth");
         genBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JProgressBar genProgress = new JProgressBar(0, 100);
+        genProgress.setStringPainted(true);
+        genProgress.setAlignmentX(Component.CENTER_ALIGNMENT);
+        genProgress.setMaximumSize(new Dimension(150, genProgress.getPreferredSize().height));
+        genProgress.setVisible(false);
+
+        JButton cancelGenBtn = new JButton("Cancel");
+        cancelGenBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+        cancelGenBtn.setVisible(false);
+
         genBtn.addActionListener(e -> {
-            LabyrinthGenerator.generateBalancedMaze(grid, 4);
+            MazeAlgorithm algorithm = MazeAlgorithm.byName(
+                (String) algorithmDropdown.getSelectedItem()
+            );
+            int candidates = Integer.parseInt(((String) bestOfDropdown.getSelectedItem()).substring(8));
+            GenerationWorker worker = new GenerationWorker(
+                grid, new FairPlacement(4), algorithm,
+                ThreadLocalRandom.current().nextLong(), symmetricBox.isSelected(), candidates,
+                genProgress::setString,
+                () -> {
+                    genBtn.setEnabled(true);
+                    genProgress.setVisible(false);
+                    cancelGenBtn.setVisible(false);
+                    panel.revalidate();
+                }
+            );
+            worker.addPropertyChangeListener(evt -> {
+                if ("progress".equals(evt.getPropertyName())) {
+                    genProgress.setValue((Integer) evt.getNewValue());
+                }
+            });
+            for (var l : cancelGenBtn.getActionListeners()) cancelGenBtn.removeActionListener(l);
+            cancelGenBtn.addActionListener(c -> worker.cancel(true));
+
+            genBtn.setEnabled(false);
+            genProgress.setValue(0);
+            genProgress.setString("Starting");
+            genProgress.setVisible(true);
+            cancelGenBtn.setVisible(true);
+            panel.revalidate();
+            worker.execute();
         });
 
+        String[] overlayOptions = new String[MazeModel.MAX_PLAYERS + 1];
+        overlayOptions[0] = "Distances: off";
+        for (int p = 1; p <= MazeModel.MAX_PLAYERS; p++) overlayOptions[p] = "Distances: P" + p;
+        JComboBox<String> overlayDropdown = new JComboBox<>(overlayOptions);
+        overlayDropdown.setAlignmentX(Component.CENTER_ALIGNMENT);
+        overlayDropdown.setMaximumSize(overlayDropdown.getPreferredSize());
+        overlayDropdown.addActionListener(e ->
+            grid.getOverlay().setPlayer(overlayDropdown.getSelectedIndex())
+        );
+
+        JButton undoBtn = new JButton("Undo");
+        undoBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+        undoBtn.addActionListener(e -> grid.getHistory().undo());
+
+        JButton redoBtn = new JButton("Redo");
+        redoBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+        redoBtn.addActionListener(e -> grid.getHistory().redo());
+
+        Runnable updateUndoButtons = () -> {
+            undoBtn.setEnabled(grid.getHistory().canUndo());
+            redoBtn.setEnabled(grid.getHistory().canRedo());
+        };
+        grid.getHistory().addChangeListener(updateUndoButtons);
+        updateUndoButtons.run();
+
         JTextArea note = new JTextArea(
             "Note: Generation\nis Experimental\n(works better with\nodd Grid sizes.)"
         );
@@ -128,16 +224,31 @@ public class ToolbarFactory {
         note.setFocusable(false);
         note.setAlignmentX(Component.CENTER_ALIGNMENT);
 
+        panel.add(undoBtn);
+        panel.add(Box.createVerticalStrut(5));
+        panel.add(redoBtn);
+        panel.add(Box.createVerticalStrut(10));
         panel.add(clearBtn);
         panel.add(Box.createVerticalStrut(10));
         panel.add(loadBtn);
         panel.add(Box.createVerticalStrut(10));
         panel.add(saveBtn);
         panel.add(Box.createVerticalStrut(10));
+        panel.add(largeBtn);
+        panel.add(Box.createVerticalStrut(10));
         panel.add(topWall);
         panel.add(Box.createVerticalStrut(10));
+        panel.add(algorithmDropdown);
+        panel.add(symmetricBox);
+        panel.add(bestOfDropdown);
+        panel.add(Box.createVerticalStrut(5));
         panel.add(genBtn);
         panel.add(Box.createVerticalStrut(5));
+        panel.add(genProgress);
+        panel.add(cancelGenBtn);
+        panel.add(Box.createVerticalStrut(10));
+        panel.add(overlayDropdown);
+        panel.add(Box.createVerticalStrut(5));
         panel.add(note);
 
 
@@ -0,0 +1,296 @@
+package net.simplehardware;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo/redo for a {@link MazeModel}. Every entry is a run of packed deltas in
+ * one long[] ring buffer, each delta holding (cell index, old byte, new byte).
+ * A paint stroke is one entry, and so is any bulk action wrapped in
+ * {@link #record}, however many cells it touches. The ring starts small and
+ * doubles up to the memory cap; once the cap is reached the oldest entries
+ * are dropped.
+ */
+public class UndoHistory implements MazeModel.Recorder, MazeModel.Listener {
+
+    public static final long DEFAULT_MEMORY_CAP = 8L << 20;
+
+    private static final int INITIAL_RING = 1024;
+
+    // delta = index << 16 | old << 8 | new
+    private static long delta(int index, byte before, byte after) {
+        return ((long) index << 16) | ((before & 0xFFL) << 8) | (after & 0xFFL);
+    }
+
+    /**
+     * Deltas [start, start + length) in absolute ring positions. Entries that
+     * change the grid size keep full snapshots instead.
+     */
+    private static final class Entry {
+        final long start;
+        int length;
+        int oldWidth, oldHeight, newWidth, newHeight;
+        byte[] oldCells, newCells;
+
+        Entry(long start) {
+            this.start = start;
+        }
+
+        long snapshotBytes() {
+            return oldCells == null ? 0 : (long) oldCells.length + newCells.length;
+        }
+    }
+
+    private final MazeModel model;
+    private final long memoryCap;
+    private final int maxRing;
+    private long[] ring;
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Runnable> changeListeners = new ArrayList<>();
+    private int cursor;          // entries before the cursor can be undone, the rest redone
+    private long end;            // absolute ring position after the last delta of entries[cursor - 1]
+    private long snapshotBytes;
+    private Entry open;          // stroke being recorded, if any
+    private boolean applying;    // suppress recording while undoing, redoing or in a bulk action
+    private int bulkDepth;       // nested record(Runnable) calls; only the outermost one diffs
+
+    public UndoHistory(MazeModel model) {
+        this(model, DEFAULT_MEMORY_CAP);
+    }
+
+    public UndoHistory(MazeModel model, long memoryCap) {
+        this.model = model;
+        this.memoryCap = memoryCap;
+        this.maxRing = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(INITIAL_RING, memoryCap / 8));
+        this.ring = new long[Math.min(INITIAL_RING, maxRing)];
+        model.setRecorder(this);
+        model.addListener(this);
+    }
+
+    /** Called after any change to what can be undone or redone. */
+    public void addChangeListener(Runnable l) {
+        changeListeners.add(l);
+    }
+
+    // ------------------------------------------------
+    // Strokes: single-cell edits between begin and end
+    // ------------------------------------------------
+    public void beginStroke() {
+        endStroke();
+        open = startEntry();
+    }
+
+    public void endStroke() {
+        if (open == null) return;
+        Entry e = open;
+        open = null;
+        if (e.length == 0) entries.remove(e);
+        cursor = entries.size();
+        fireChanged();
+    }
+
+    @Override
+    public void record(int index, byte before, byte after) {
+        if (applying) return;
+        boolean single = open == null;
+        if (single) open = startEntry();
+        append(open, delta(index, before, after));
+        if (single) endStroke();
+    }
+
+    // ------------------------------------------------
+    // Bulk actions collapse into one entry
+    // ------------------------------------------------
+
+    /**
+     * Runs action and stores everything it changed as a single undo step.
+     * Calls nest: an action run inside another is part of the outer step.
+     */
+    public void record(Runnable action) {
+        if (bulkDepth > 0) {
+            action.run();
+            return;
+        }
+        endStroke();
+        int oldW = model.getWidth();
+        int oldH = model.getHeight();
+        byte[] before = model.copyCells();
+        bulkDepth++;
+        applying = true;
+        try {
+            action.run();
+        } finally {
+            applying = false;
+            bulkDepth--;
+        }
+        commitBulk(oldW, oldH, before);
+    }
+
+    /**
+     * Stores the difference between before and the model's current cells as
+     * one undo step, for bulk changes made without {@link #record(Runnable)}.
+     */
+    public void commitBulk(int oldW, int oldH, byte[] before) {
+        endStroke();
+        byte[] after = model.cells();
+        Entry e = startEntry();
+        if (oldW != model.getWidth() || oldH != model.getHeight()) {
+            e.oldWidth = oldW;
+            e.oldHeight = oldH;
+            e.oldCells = before;
+            e.newWidth = model.getWidth();
+            e.newHeight = model.getHeight();
+            e.newCells = after.clone();
+            snapshotBytes += e.snapshotBytes();
+        } else {
+            for (int i = 0; i < after.length; i++) {
+                if (before[i] != after[i] && !append(e, delta(i, before[i], after[i]))) {
+                    return; // history was cleared
+                }
+            }
+        }
+        if (e.length == 0 && e.oldCells == null) entries.remove(e);
+        cursor = entries.size();
+        evict();
+        fireChanged();
+    }
+
+    // ------------------------------------------------
+    // Undo / redo
+    // ------------------------------------------------
+    public boolean canUndo() {
+        return cursor > 0 || (open != null && open.length > 0);
+    }
+
+    public boolean canRedo() {
+        return open == null && cursor < entries.size();
+    }
+
+    public void undo() {
+        endStroke();
+        if (cursor == 0) return;
+        Entry e = entries.get(--cursor);
+        end = e.start;
+        apply(e, true);
+        fireChanged();
+    }
+
+    public void redo() {
+        endStroke();
+        if (cursor == entries.size()) return;
+        Entry e = entries.get(cursor++);
+        end = e.start + e.length;
+        apply(e, false);
+        fireChanged();
+    }
+
+    public void clear() {
+        open = null;
+        entries.clear();
+        cursor = 0;
+        end = 0;
+        snapshotBytes = 0;
+        ring = new long[Math.min(INITIAL_RING, maxRing)];
+        fireChanged();
+    }
+
+    private void apply(Entry e, boolean undo) {
+        applying = true;
+        try {
+            if (e.oldCells != null) {
+                if (undo) model.setCells(e.oldWidth, e.oldHeight, e.oldCells);
+                else model.setCells(e.newWidth, e.newHeight, e.newCells);
+                return;
+            }
+            byte[] cells = model.cells();
+            int w = model.getWidth();
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+            for (int k = 0; k < e.length; k++) {
+                // Undo walks the deltas backwards so repeated cells end at their first value
+                long pos = undo ? e.start + e.length - 1 - k : e.start + k;
+                long d = ring[(int) (pos % ring.length)];
+                int index = (int) (d >>> 16);
+                cells[index] = (byte) (undo ? d >>> 8 : d);
+                int x = index % w;
+                int y = index / w;
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+            }
+            if (maxX >= 0) model.fireCellsChanged(minX, minY, maxX, maxY);
+        } finally {
+            applying = false;
+        }
+    }
+
+    // ------------------------------------------------
+    // Ring management
+    // ------------------------------------------------
+    private Entry startEntry() {
+        // A new edit discards everything that could have been redone
+        for (int i = entries.size() - 1; i >= cursor; i--) {
+            snapshotBytes -= entries.remove(i).snapshotBytes();
+        }
+        Entry e = new Entry(end);
+        entries.add(e);
+        return e;
+    }
+
+    /**
+     * Appends one delta. A full ring doubles until it reaches the memory cap;
+     * after that the oldest entries are dropped.
+     */
+    private boolean append(Entry e, long d) {
+        if (e.length >= maxRing) {
+            // This one action is larger than the whole history; it cannot be undone
+            clear();
+            return false;
+        }
+        if (end + 1 - entries.get(0).start > ring.length && ring.length < maxRing) grow();
+        while (entries.get(0) != e && end + 1 - entries.get(0).start > ring.length) {
+            dropOldest();
+        }
+        ring[(int) (end % ring.length)] = d;
+        end++;
+        e.length++;
+        return true;
+    }
+
+    /** Doubles the ring, keeping every live delta at its absolute position. */
+    private void grow() {
+        long[] bigger = new long[(int) Math.min(maxRing, 2L * ring.length)];
+        for (long pos = entries.get(0).start; pos < end; pos++) {
+            bigger[(int) (pos % bigger.length)] = ring[(int) (pos % ring.length)];
+        }
+        ring = bigger;
+    }
+
+    private void evict() {
+        while (entries.size() > 1 && snapshotBytes + 8 * (end - entries.get(0).start) > memoryCap) {
+            dropOldest();
+        }
+    }
+
+    private void dropOldest() {
+        Entry oldest = entries.remove(0);
+        snapshotBytes -= oldest.snapshotBytes();
+        cursor = Math.max(0, cursor - 1);
+    }
+
+    private void fireChanged() {
+        for (Runnable l : changeListeners) l.run();
+    }
+
+    // ------------------------------------------------
+    // Model events
+    // ------------------------------------------------
+    @Override
+    public void cellsChanged(int minX, int minY, int maxX, int maxY) {}
+
+    @Override
+    public void modelResized(int width, int height) {
+        // Deltas are indexed for the old size; a resize we did not record invalidates them
+        if (!applying) clear();
+    }
+}
@@ -0,0 +1,64 @@
+package net.simplehardware;
+
+import java.util.SplittableRandom;
+
+/**
+ * Wilson's algorithm: loop-erased random walks from every room not yet in
+ * the tree. Samples uniformly from all spanning trees, so the texture has no
+ * directional bias. Slower than the others until the tree has grown.
+ */
+public class WilsonAlgorithm implements MazeAlgorithm {
+
+    @Override
+    public String getName() {
+        return "Wilson";
+    }
+
+    @Override
+    public void carve(byte[] cells, int w, int h, SplittableRandom rng) {
+        int rw = (w - 1) / 2;
+        int rh = (h - 1) / 2;
+        int rooms = rw * rh;
+
+        // Last step taken out of each room during the current walk; revisiting
+        // a room overwrites it, which erases the loop
+        int[] next = new int[rooms];
+        boolean[] inTree = new boolean[rooms];
+        int[] options = new int[4];
+
+        int root = rng.nextInt(rooms);
+        inTree[root] = true;
+        cells[cellOf(root, rw, w)] = MazeModel.FLOOR;
+
+        for (int start = 0; start < rooms; start++) {
+            if (inTree[start]) continue;
+
+            int room = start;
+            while (!inTree[room]) {
+                int rx = room % rw;
+                int ry = room / rw;
+                int count = 0;
+                if (rx > 0) options[count++] = room - 1;
+                if (rx + 1 < rw) options[count++] = room + 1;
+                if (ry > 0) options[count++] = room - rw;
+                if (ry + 1 < rh) options[count++] = room + rw;
+                next[room] = options[rng.nextInt(count)];
+                room = next[room];
+            }
+
+            room = start;
+            while (!inTree[room]) {
+                int a = cellOf(room, rw, w);
+                int b = cellOf(next[room], rw, w);
+                cells[a] = MazeModel.FLOOR;
+                cells[(a + b) >>> 1] = MazeModel.FLOOR;
+                inTree[room] = true;
+                room = next[room];
+            }
+        }
+    }
+
+    private static int cellOf(int room, int rw, int w) {
+        return (2 * (room / rw) + 1) * w + 2 * (room % rw) + 1;
+    }
+}
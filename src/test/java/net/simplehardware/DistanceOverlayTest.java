@@ -0,0 +1,50 @@
+package net.simplehardware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DistanceOverlayTest {
+
+    @Test
+    void localRepairsMatchFullRecompute() {
+        int size = 31;
+        MazeModel model = new MazeModel(size);
+        Random random = new Random(7);
+        for (int i = 0; i < size * size / 3; i++) {
+            model.set(random.nextInt(size), random.nextInt(size), Mode.WALL, 0);
+        }
+        int start = model.index(size / 2, size / 2);
+        model.set(size / 2, size / 2, Mode.START, 1);
+
+        DistanceOverlay overlay = new DistanceOverlay(model, (minX, minY, maxX, maxY) -> {});
+        overlay.setPlayer(1);
+        DistanceField expected = new DistanceField(size, size);
+
+        for (int step = 0; step < 2000; step++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (model.index(x, y) == start) continue;
+            model.set(x, y, model.get(x, y) == MazeModel.WALL ? Mode.FLOOR : Mode.WALL, 0);
+
+            expected.compute(model.cells(), start);
+            for (int i = 0; i < size * size; i++) {
+                assertEquals(expected.get(i), overlay.get(i), "step " + step + ", cell " + i);
+            }
+        }
+        assertTrue(overlay.getRepairs() > 0, "no edit was repaired locally");
+    }
+
+    @Test
+    void offReportsUnreachable() {
+        MazeModel model = new MazeModel(5);
+        model.set(0, 0, Mode.START, 1);
+        DistanceOverlay overlay = new DistanceOverlay(model, (minX, minY, maxX, maxY) -> {});
+        overlay.setPlayer(1);
+        assertEquals(0, overlay.get(0));
+        overlay.setPlayer(0);
+        assertEquals(DistanceField.UNREACHABLE, overlay.get(0));
+    }
+}
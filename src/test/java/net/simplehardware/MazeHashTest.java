@@ -0,0 +1,86 @@
+package net.simplehardware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MazeHashTest {
+
+    private static byte[] randomCells(int w, int h, long seed) {
+        Random random = new Random(seed);
+        byte[] cells = new byte[w * h];
+        for (int i = 0; i < cells.length; i++) {
+            int r = random.nextInt(10);
+            cells[i] = r < 4 ? MazeModel.WALL : r < 9 ? MazeModel.FLOOR : MazeModel.pack(Mode.FORM_A, 1 + r % 2);
+        }
+        cells[0] = MazeModel.pack(Mode.START, 1);
+        return cells;
+    }
+
+    /** Quarter turn clockwise; the result is h wide and w high. */
+    private static byte[] rotate(byte[] cells, int w, int h) {
+        byte[] out = new byte[cells.length];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                out[x * h + (h - 1 - y)] = cells[y * w + x];
+            }
+        }
+        return out;
+    }
+
+    private static byte[] mirror(byte[] cells, int w, int h) {
+        byte[] out = new byte[cells.length];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                out[y * w + (w - 1 - x)] = cells[y * w + x];
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void sameForAllEightSymmetries() {
+        // Not square, so the transposed orientations are exercised too
+        int w = 13;
+        int h = 9;
+        byte[] cells = randomCells(w, h, 3);
+        long canonical = MazeHash.canonical(cells, w, h);
+
+        byte[] current = cells;
+        int cw = w;
+        int ch = h;
+        for (int turn = 0; turn < 4; turn++) {
+            assertEquals(canonical, MazeHash.canonical(current, cw, ch), "rotated " + turn + " times");
+            assertEquals(canonical, MazeHash.canonical(mirror(current, cw, ch), cw, ch),
+                "rotated " + turn + " times and mirrored");
+            current = rotate(current, cw, ch);
+            int t = cw;
+            cw = ch;
+            ch = t;
+        }
+    }
+
+    @Test
+    void differentMazesDiffer() {
+        byte[] cells = randomCells(15, 15, 5);
+        long before = MazeHash.canonical(cells, 15, 15);
+        cells[7 * 15 + 7] = cells[7 * 15 + 7] == MazeModel.WALL ? MazeModel.FLOOR : MazeModel.WALL;
+        assertNotEquals(before, MazeHash.canonical(cells, 15, 15));
+    }
+
+    @Test
+    void ownerChangesTheHash() {
+        byte[] cells = randomCells(15, 15, 5);
+        long before = MazeHash.canonical(cells, 15, 15);
+        cells[0] = MazeModel.pack(Mode.START, 2);
+        assertNotEquals(before, MazeHash.canonical(cells, 15, 15));
+    }
+
+    @Test
+    void hexRoundTrips() {
+        long hash = MazeHash.canonical(randomCells(11, 11, 9), 11, 11);
+        assertEquals(hash, MazeHash.fromHex(MazeHash.toHex(hash)));
+    }
+}
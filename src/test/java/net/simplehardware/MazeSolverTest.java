@@ -0,0 +1,119 @@
+package net.simplehardware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MazeSolverTest {
+
+    /** Rows of two-character cells, as in the maze string. */
+    private static MazeLoader.Loaded maze(String... rows) throws MazeLoader.MazeFormatException {
+        MazeLoader.Loaded loaded = new MazeLoader.Loaded();
+        MazeLoader.decode(String.join("/", rows), loaded);
+        return loaded;
+    }
+
+    private static MazeSolver.Solution solve(MazeLoader.Loaded maze) {
+        return new MazeSolver(maze).solve(1);
+    }
+
+    @Test
+    void straightCorridor() throws Exception {
+        MazeSolver.Solution s = solve(maze(
+            "##############",
+            "##@1      !1##",
+            "##############"));
+        assertEquals(MazeSolver.Status.SOLVED, s.status);
+        assertEquals(4, s.moves);
+        assertEquals("EEEE", s.path);
+    }
+
+    @Test
+    void formsAreVisitedInOrder() throws Exception {
+        // The finish is on the way to A, but A has to come first
+        MazeSolver.Solution s = solve(maze(
+            "##############",
+            "##!1  @1  A1##",
+            "##############"));
+        assertEquals(MazeSolver.Status.SOLVED, s.status);
+        assertEquals(6, s.moves);
+        assertEquals("EEWWWW", s.path);
+    }
+
+    @Test
+    void sheetInCorridorAgainstWallIsUnsolvable() throws Exception {
+        // The sheet can be pushed as far as the finish but no further, and
+        // the heuristic, which ignores sheets, cannot tell
+        MazeSolver.Solution s = solve(maze(
+            "##############",
+            "##@1S1    !1##",
+            "##############"));
+        assertEquals(MazeSolver.Status.UNSOLVABLE, s.status);
+        assertEquals(-1, s.moves);
+        assertEquals("", s.path);
+        assertTrue(s.expanded > 0);
+    }
+
+    @Test
+    void sheetForcesDetour() throws Exception {
+        // Straight through is 4 moves; the sheet ends up in the way either way
+        MazeSolver.Solution s = solve(maze(
+            "##############",
+            "##@1S1    !1##",
+            "##          ##",
+            "##############"));
+        assertEquals(MazeSolver.Status.SOLVED, s.status);
+        assertEquals(6, s.moves);
+        assertEquals(6, s.path.length());
+    }
+
+    @Test
+    void sheetOwnedByAnotherPlayerStillBlocks() throws Exception {
+        MazeSolver.Solution s = solve(maze(
+            "##############",
+            "##@1S2    !1##",
+            "##############"));
+        assertEquals(MazeSolver.Status.UNSOLVABLE, s.status);
+    }
+
+    @Test
+    void walledOffFinishIsUnsolvable() throws Exception {
+        MazeSolver.Solution s = solve(maze(
+            "##########",
+            "##@1##!1##",
+            "##########"));
+        assertEquals(MazeSolver.Status.UNSOLVABLE, s.status);
+    }
+
+    @Test
+    void missingFinishIsUnsupported() throws Exception {
+        MazeSolver.Solution s = solve(maze(
+            "##########",
+            "##@1    ##",
+            "##########"));
+        assertEquals(MazeSolver.Status.UNSUPPORTED, s.status);
+    }
+
+    @Test
+    void distanceTablesCountAgainstBudget() throws Exception {
+        MazeLoader.Loaded m = maze(
+            "##############",
+            "##@1      !1##",
+            "##############");
+        MazeSolver.Solution s = new MazeSolver(m.cells, m.width, m.height, 16).solve(1);
+        assertEquals(MazeSolver.Status.BUDGET_EXCEEDED, s.status);
+    }
+
+    @Test
+    void solveAllReportsEveryPlayerWithAStart() throws Exception {
+        MazeSolver.Report report = new MazeSolver(maze(
+            "##############",
+            "##@1      !1##",
+            "##@2  !2    ##",
+            "##############")).solveAll();
+        assertEquals(2, report.players.size());
+        assertEquals(4, report.players.get(0).moves);
+        assertEquals(2, report.players.get(1).moves);
+    }
+}
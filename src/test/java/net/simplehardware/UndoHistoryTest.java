@@ -0,0 +1,90 @@
+package net.simplehardware;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class UndoHistoryTest {
+
+    private static void toggle(MazeModel model, int x, int y) {
+        model.set(x, y, model.get(x, y) == MazeModel.FLOOR ? Mode.WALL : Mode.FLOOR, 0);
+    }
+
+    @Test
+    void nestedBulkRecordIsOneStep() {
+        MazeModel model = new MazeModel(20);
+        UndoHistory history = new UndoHistory(model);
+        history.record(() -> {
+            model.set(1, 1, Mode.WALL, 0);
+            history.record(() -> model.set(2, 2, Mode.WALL, 0));
+            model.set(3, 3, Mode.WALL, 0);
+        });
+
+        history.undo();
+        assertEquals(MazeModel.FLOOR, model.get(1, 1));
+        assertEquals(MazeModel.FLOOR, model.get(2, 2));
+        assertEquals(MazeModel.FLOOR, model.get(3, 3));
+        assertFalse(history.canUndo());
+
+        history.redo();
+        assertEquals(MazeModel.WALL, model.get(2, 2));
+        assertEquals(MazeModel.WALL, model.get(3, 3));
+    }
+
+    @Test
+    void ringGrowsPastItsInitialSize() {
+        // More single-cell edits than the ring starts with; each undo must
+        // restore exactly the grid before that edit
+        MazeModel model = new MazeModel(50);
+        UndoHistory history = new UndoHistory(model);
+        Random random = new Random(1);
+        List<byte[]> snapshots = new ArrayList<>();
+        snapshots.add(model.copyCells());
+        for (int i = 0; i < 5000; i++) {
+            toggle(model, random.nextInt(50), random.nextInt(50));
+            snapshots.add(model.copyCells());
+        }
+        for (int i = snapshots.size() - 2; i >= 0; i--) {
+            assertTrue(history.canUndo());
+            history.undo();
+            assertArrayEquals(snapshots.get(i), model.cells(), "after undoing edit " + (i + 1));
+        }
+        assertFalse(history.canUndo());
+    }
+
+    @Test
+    void memoryCapDropsOldestEdits() {
+        MazeModel model = new MazeModel(50);
+        UndoHistory history = new UndoHistory(model, 16 * 1024);
+        for (int i = 0; i < 5000; i++) toggle(model, i % 50, (i / 50) % 50);
+        byte[] latest = model.copyCells();
+
+        int undone = 0;
+        while (history.canUndo()) {
+            history.undo();
+            undone++;
+        }
+        assertTrue(undone > 0 && undone < 5000, "undone " + undone);
+        for (int i = 0; i < undone; i++) history.redo();
+        assertArrayEquals(latest, model.cells());
+    }
+
+    @Test
+    void clearForgetsEverything() {
+        MazeModel model = new MazeModel(10);
+        UndoHistory history = new UndoHistory(model);
+        toggle(model, 1, 1);
+        history.clear();
+        assertFalse(history.canUndo());
+        toggle(model, 2, 2);
+        history.undo();
+        assertEquals(MazeModel.WALL, model.get(1, 1));
+        assertEquals(MazeModel.FLOOR, model.get(2, 2));
+    }
+}